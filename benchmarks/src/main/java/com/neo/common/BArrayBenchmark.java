@@ -0,0 +1,45 @@
+package com.neo.common;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sampling of random zero positions, where half of the positions are set.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BArrayBenchmark {
+
+  // number of rows, i.e. parameter combinations
+  @Param({"78", "4060", "1313400"})
+  public int rows;
+
+  // number of columns, i.e. value combinations
+  @Param({"9", "27"})
+  public int columns;
+
+  private BArray array;
+
+  @Setup
+  public void setup() {
+    array = new BArray(rows, columns);
+    for (int i = 0; i < rows; i++)
+      for (int j = 0; j < columns; j += 2)
+        array.setElement(i, j, true);
+  }
+
+  @Benchmark
+  public Position getRandomZeroPosition() {
+    // set the sampled position and reset it, so that the density is unchanged
+    Position p = array.getRandomZeroPosition();
+    array.setElement(p.row, p.column, true);
+    array.setElement(p.row, p.column, false);
+    return p;
+  }
+
+}
@@ -0,0 +1,65 @@
+package com.neo.generator;
+
+import com.neo.combinatorial.CTModel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The models used by the benchmarks, which are named as follows:
+ *
+ *   main       the constrained model of Main, i.e. 2^3 3^2 with 3 constraints
+ *   t:v^k      CA(N; t, v^k) without constraints, e.g. 2:3^13
+ *   t:v^k+c    CA(N; t, v^k) with the constraints of Main on its first parameters
+ */
+final class BenchmarkModels {
+
+  private BenchmarkModels() {
+  }
+
+  static CTModel create(String name) {
+    if (name.equals("main")) {
+      List<List<String>> constraint = new ArrayList<>();
+      constraint.add(Arrays.asList("0/0", "1/0"));
+      constraint.add(Arrays.asList("2/1", "4/2"));
+      constraint.add(Arrays.asList("2/0", "3/0", "4/1"));
+      return new CTModel(5, new int[]{2, 2, 2, 3, 3}, 2, constraint);
+    }
+
+    boolean constrained = name.endsWith("+c");
+    String[] spec = name.replace("+c", "").split("[:^]");
+    if (spec.length != 3)
+      throw new IllegalArgumentException("unknown model: " + name);
+    int t = Integer.parseInt(spec[0]);
+    int v = Integer.parseInt(spec[1]);
+    int k = Integer.parseInt(spec[2]);
+
+    int[] value = new int[k];
+    Arrays.fill(value, v);
+    List<List<String>> constraint = new ArrayList<>();
+    if (constrained) {
+      constraint.add(Arrays.asList("0/0", "1/0"));
+      constraint.add(Arrays.asList("2/1", "4/" + (v - 1)));
+      constraint.add(Arrays.asList("2/0", "3/0", "4/1"));
+    }
+    return new CTModel(k, value, t, constraint);
+  }
+
+  /**
+   * Return n random test cases of a model, which are not necessarily valid.
+   */
+  static ArrayList<int[]> randomTests(CTModel model, int n, long seed) {
+    Random random = new Random(seed);
+    ArrayList<int[]> tests = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      int[] test = new int[model.parameter];
+      for (int p = 0; p < model.parameter; p++)
+        test[p] = random.nextInt(model.value[p]);
+      tests.add(test);
+    }
+    return tests;
+  }
+
+}
@@ -0,0 +1,39 @@
+package com.neo.generator;
+
+import com.neo.combinatorial.CTModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The coverage of a test suite, computed from scratch by the model.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CTModelBenchmark {
+
+  @Param({"main", "2:3^13", "2:5^20", "3:3^15", "2:3^30+c"})
+  public String model;
+
+  private CTModel ct;
+  private ArrayList<int[]> suite;
+
+  @Setup
+  public void setup() {
+    ct = BenchmarkModels.create(model);
+    ct.initialization();
+    ct.removeInvalidCombinations();
+    suite = BenchmarkModels.randomTests(ct, 64, 1);
+  }
+
+  @Benchmark
+  public long fitnessValue() {
+    return ct.fitnessValue(suite);
+  }
+
+}
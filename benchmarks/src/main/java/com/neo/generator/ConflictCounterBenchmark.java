@@ -0,0 +1,54 @@
+package com.neo.generator;
+
+import com.neo.combinatorial.CTModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Constraint violations of test cases and test suites, as used by the
+ * tolerate mode of SA.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConflictCounterBenchmark {
+
+  @Param({"main", "2:3^30+c"})
+  public String model;
+
+  private CTModel ct;
+  private ConflictCounter counter;
+  private ArrayList<int[]> tests;
+  private int next;
+
+  @Setup
+  public void setup() {
+    ct = BenchmarkModels.create(model);
+    counter = new ConflictCounter(ct);
+    tests = BenchmarkModels.randomTests(ct, 64, 1);
+  }
+
+  @Benchmark
+  public int violateConstraintNumTest() {
+    return counter.violateConstraintNum(tests.get(next++ % tests.size()));
+  }
+
+  @Benchmark
+  public int violateConstraintNumSuite() {
+    return counter.violateConstraintNum(tests);
+  }
+
+  @Benchmark
+  public int violationDelta() {
+    int i = next++;
+    int[] test = tests.get(i % tests.size());
+    int column = i % ct.parameter;
+    return counter.violationDelta(test, column, test[column], (test[column] + 1) % ct.value[column]);
+  }
+
+}
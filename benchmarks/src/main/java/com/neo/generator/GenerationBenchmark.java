@@ -0,0 +1,34 @@
+package com.neo.generator;
+
+import com.neo.combinatorial.CTModel;
+import com.neo.combinatorial.TestSuite;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The full generation of SA, from a newly created model to a covering array.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GenerationBenchmark {
+
+  @Param({"main", "2:3^13", "2:5^10", "2:3^30+c"})
+  public String model;
+
+  @Param({"false", "true"})
+  public boolean tolerate;
+
+  @Benchmark
+  public TestSuite generation() {
+    CTModel ct = BenchmarkModels.create(model);
+    TestSuite ts = new TestSuite();
+    new SA(tolerate).generation(ct, ts);
+    return ts;
+  }
+
+}
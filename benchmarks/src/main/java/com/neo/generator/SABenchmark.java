@@ -0,0 +1,51 @@
+package com.neo.generator;
+
+import com.neo.combinatorial.CTModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The coverage update of a single column move, which dominates the inner search.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SABenchmark {
+
+  @Param({"main", "2:3^13", "2:5^20", "3:3^15", "2:3^30+c"})
+  public String model;
+
+  private CTModel ct;
+  private SA sa;
+  private ArrayList<int[]> suite;
+  private int next;
+
+  @Setup
+  public void setup() {
+    ct = BenchmarkModels.create(model);
+    ct.initialization();
+    ct.removeInvalidCombinations();
+    sa = new SA(false);
+    sa.prepare(ct);
+    suite = BenchmarkModels.randomTests(ct, 64, 1);
+    sa.initCover(suite.size());
+    for (int[] test : suite)
+      sa.updateTestCaseCoverage(ct, test, 1);
+  }
+
+  @Benchmark
+  public int updateTestCaseCoverage() {
+    // remove and add back one column of one row, so that the coverage is unchanged
+    int[] test = suite.get(next % suite.size());
+    int column = next % ct.parameter;
+    next++;
+    return sa.updateTestCaseCoverage(ct, test, column, 0)
+        + sa.updateTestCaseCoverage(ct, test, column, 1);
+  }
+
+}
@@ -0,0 +1,51 @@
+package com.neo.generator;
+
+import com.neo.combinatorial.CTModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validity checks of complete test cases, and of a single changed column.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidityCheckerBenchmark {
+
+  @Param({"main", "2:3^30+c"})
+  public String model;
+
+  @Param({"mft", "sat"})
+  public String checker;
+
+  private CTModel ct;
+  private ArrayList<int[]> tests;
+  private int next;
+
+  @Setup
+  public void setup() {
+    ct = BenchmarkModels.create(model);
+    if (checker.equals("sat")) {
+      ct.checker = new SATChecker();
+      ct.checker.init(ct);
+    }
+    tests = BenchmarkModels.randomTests(ct, 1024, 1);
+  }
+
+  @Benchmark
+  public boolean isValid() {
+    return ct.checker.isValid(tests.get(next++ % tests.size()));
+  }
+
+  @Benchmark
+  public boolean isValidColumn() {
+    int i = next++;
+    return ct.checker.isValid(tests.get(i % tests.size()), i % ct.parameter);
+  }
+
+}
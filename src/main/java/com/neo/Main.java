@@ -38,6 +38,7 @@ public class Main {
       System.out.println(Arrays.toString(each.test));
     }
     System.out.println("size = " + ts.suite.size());
+    System.out.println("seed = " + gen.getSeed());
     System.out.println("time = " + Duration.between(start, end).getSeconds());
 
   }
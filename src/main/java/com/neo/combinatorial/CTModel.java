@@ -8,6 +8,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static java.lang.Math.abs;
 
@@ -30,8 +34,21 @@ public class CTModel {
   //   3   6   9  12  15
   public int[][] relation;
 
-  // the list of parameter combinations
-  public ArrayList<int[]> allPc;
+  // binomial coefficients up to C(parameter, t_way), used to rank parameter combinations
+  public Binomial binomial;
+
+  // all parameter combinations in lexicographic order, packed into a flat array,
+  // i.e. the i-th combination occupies allPc[i * t_way .. (i + 1) * t_way)
+  public int[] allPc;
+
+  // the indexes of parameter combinations (rows of allPc) that involve each parameter,
+  // i.e. pcOfParameter[p] contains the C(parameter - 1, t_way - 1) rows including p
+  public int[][] pcOfParameter;
+
+  // the mixed-radix multiplier of each parameter in each parameter combination, in the
+  // same layout as allPc, so that the index of a value combination in row i is
+  // sum_k pcMultiplier[i * t_way + k] * schema[k]
+  public int[] pcMultiplier;
 
   // constraint validity checker
   public ValidityChecker checker;
@@ -45,10 +62,20 @@ public class CTModel {
   private long combRaw;             // the total number of possible combinations
   private long combAll;             // the total number of valid combinations to be covered
   private long combUncovered;       // the number of uncovered combinations
+  private long[] invalid;           // the invalid combinations as (row << 32 | column), null if not removed yet
   private int uniformRow;           // the number of uniform strength rows in combination, i.e. C(parameter, t_way)
   private int testCaseCoverMax;     // the maximum number of combinations that can be covered by a test case
+  private long seed;                // the seed of random uncovered combinations
 
   public CTModel(int parameter, int[] value, int t_way, List<List<String>> cons) {
+    this(parameter, value, t_way, cons, null);
+  }
+
+  /**
+   * Create a model with a specified validity checker, which is initialized by
+   * this model. If checker is null, a checker is selected by the estimated cost.
+   */
+  public CTModel(int parameter, int[] value, int t_way, List<List<String>> cons, ValidityChecker checker) {
     this.parameter = parameter;
     this.value = value;
     this.t_way = t_way;
@@ -72,7 +99,9 @@ public class CTModel {
       this.constraint.add(formula);
     }
 
-    uniformRow = ALG.combine(parameter, t_way);
+    seed = ThreadLocalRandom.current().nextLong();
+    binomial = new Binomial(parameter, t_way);
+    uniformRow = binomial.getInt(parameter, t_way);
     testCaseCoverMax = this.uniformRow;
 
     // determine constrained parameters
@@ -97,7 +126,7 @@ public class CTModel {
     }
 
     // set constraint checker
-    this.checker = new ValidityChecker();
+    this.checker = checker != null ? checker : ValidityChecker.select(this);
     this.checker.init(this);
   }
 
@@ -106,6 +135,19 @@ public class CTModel {
   public BArray getCombination(){
     return combination;
   }
+
+  /**
+   * Set the seed of random uncovered combinations, which takes effect
+   * from the next initialization().
+   */
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
   public long getCombRaw() {
     return combRaw;
   }
@@ -118,10 +160,35 @@ public class CTModel {
     return combUncovered;
   }
 
+  /**
+   * Return the invalid combinations found by the last removeInvalidCombinations(),
+   * each of which is packed as (row << 32 | column), or null if they have not
+   * been removed since the last initialization().
+   */
+  public long[] getInvalidCombinations() {
+    return invalid;
+  }
+
   public long getTestCaseCoverMax() {
     return testCaseCoverMax;
   }
 
+  /**
+   * Return the number of parameter combinations, i.e. C(parameter, t_way).
+   */
+  public int getPcNumber() {
+    return uniformRow;
+  }
+
+  /**
+   * Return a copy of the row-th parameter combination.
+   *
+   * @param row index of parameter combination
+   */
+  public int[] getParameterCombination(int row) {
+    return Arrays.copyOfRange(allPc, row * t_way, (row + 1) * t_way);
+  }
+
   /**
    * Determine whether a complete or partial test case is
    * constraint satisfiable. The result is obtained from
@@ -143,9 +210,24 @@ public class CTModel {
     return true;*/
   }
 
+  /**
+   * Determine whether a test case is still constraint satisfiable after
+   * its column-th value is changed, given that it was satisfiable before.
+   *
+   * @param test   a complete or partial test case
+   * @param column the changed column
+   */
+  public boolean isValid(final int[] test, int column) {
+    // a parameter that is involved in no constraint cannot make it invalid
+    if (!checker.MFT.isConstrained(column))
+      return true;
+    return checker.isValid(test, column);
+  }
+
   public boolean isValid(final Tuple tuple) {
+    // only call ValidityChecker when the tuple involves a parameter of MFT
     for (int p : tuple.position) {
-      if (constrainedParameters.contains(p)) {
+      if (checker.MFT.isConstrained(p)) {
         return checker.isValid(tuple.test);
       }
     }
@@ -172,27 +254,57 @@ public class CTModel {
    */
   public void initialization() {
     combination = null;
+    invalid = null;
     combRaw = combAll = combUncovered = 0;
-    allPc = ALG.allCombination(parameter, t_way);
+    allPc = new int[Math.multiplyExact(uniformRow, t_way)];
 
     // assign uniformRow rows
     combination = new BArray(uniformRow);
+    combination.setSeed(seed);
 
     // enumerate all t-way combinations to calculate the number of combinations
     // to be covered and remove invalid combinations
-    int i = 0;
-   // int count = 0;
-    for (int[] pos : allPc) {
+    int[] pos = ALG.firstCombination(t_way);
+    for (int i = 0; i < uniformRow; i++) {
+      System.arraycopy(pos, 0, allPc, i * t_way, t_way);
       // calculate the number of t-way combinations
       int cc = ALG.combineValue(pos, value);
-      combination.initializeRow(i++, cc);
+      combination.initializeRow(i, cc);
 
       // update variables
       combRaw += cc;
       combAll += cc;
       combUncovered += cc;
+      ALG.nextCombination(pos, parameter);
     }
     combination.initializeZeros();
+    initializeIndex();
+  }
+
+  /**
+   * Build the per-parameter index over allPc and the mixed-radix
+   * multipliers of each parameter combination.
+   */
+  private void initializeIndex() {
+    pcMultiplier = new int[allPc.length];
+    int[] count = new int[parameter];
+    for (int i = 0; i < uniformRow; i++) {
+      int com = 1;
+      for (int k = (i + 1) * t_way - 1; k >= i * t_way; k--) {
+        pcMultiplier[k] = com;
+        com = com * value[allPc[k]];
+        count[allPc[k]]++;
+      }
+    }
+
+    pcOfParameter = new int[parameter][];
+    for (int p = 0; p < parameter; p++)
+      pcOfParameter[p] = new int[count[p]];
+    int[] fill = new int[parameter];
+    for (int i = 0; i < uniformRow; i++) {
+      for (int k = i * t_way; k < (i + 1) * t_way; k++)
+        pcOfParameter[allPc[k]][fill[allPc[k]]++] = i;
+    }
   }
 
   /**
@@ -200,17 +312,107 @@ public class CTModel {
    * to determine whether it is valid or not. Each invalid combination is either
    * explicit or implicit constraint. All invalid combination will be removed
    * from the set of combinations to be covered (i.e. comb).
+   *
+   * The parameter combinations are split into ranges that are checked in
+   * parallel, and the invalid combinations are then removed sequentially.
+   * They are also kept, so that a generator can reuse them after the
+   * combinations are covered by another one (see getInvalidCombinations()).
    */
   public void removeInvalidCombinations() {
-    // for each t-way combination
-    // which is represented by par_row[] and val_row[]
-    for (int[] pos : ALG.allCombination(parameter, t_way) ) {
-      for (int[] sch : ALG.allV(pos, t_way, value) ) {
-        if (!isValid(pos, sch) && !covered(pos, sch, 1)) {
-          combAll--;
+    int rows = uniformRow;
+    int chunks = Math.min(rows, Runtime.getRuntime().availableProcessors() * 4);
+    if (chunks == 0) {
+      invalid = new long[0];
+      return;
+    }
+
+    // if the empty test case is invalid, no combination can be skipped
+    int[] empty = new int[parameter];
+    Arrays.fill(empty, -1);
+    boolean skip = checker.isValid(empty);
+
+    List<long[]> chunk = IntStream.range(0, chunks).parallel()
+        .mapToObj(c -> invalidCombinations((int) ((long) rows * c / chunks),
+            (int) ((long) rows * (c + 1) / chunks), skip))
+        .collect(Collectors.toList());
+
+    invalid = new long[chunk.stream().mapToInt(each -> each.length).sum()];
+    int k = 0;
+    for (long[] each : chunk) {
+      System.arraycopy(each, 0, invalid, k, each.length);
+      k += each.length;
+    }
+    // some combinations may have been covered, e.g. marked by lazy detection
+    for (long e : invalid)
+      covered((int) (e >>> 32), (int) e, 1);
+    combAll = combRaw - invalid.length;
+  }
+
+  /**
+   * Return the invalid combinations of the parameter combinations in [from, to),
+   * each of which is packed as (row << 32 | column). Value combinations are
+   * enumerated by an odometer on a single reusable test case, where the values
+   * of unconstrained parameters are left unfixed, as they cannot make a test
+   * case invalid. So the value combinations that only differ in unconstrained
+   * parameters are the same query, which the checker can answer from its cache.
+   *
+   * @param skip whether to skip parameter combinations that involve no
+   *             constrained parameter
+   */
+  private long[] invalidCombinations(int from, int to, boolean skip) {
+    long[] invalid = new long[16];
+    int size = 0;
+    int[] test = new int[parameter];
+    int[] sch = new int[t_way];
+    Arrays.fill(test, -1);
+    boolean[] constrained = new boolean[parameter];
+    for (int p = 0; p < parameter; p++)
+      constrained[p] = !skip || checker.MFT.isConstrained(p);
+
+    for (int row = from; row < to; row++) {
+      int base = row * t_way;
+      if (skip && !isConstrained(row))
+        continue;
+
+      Arrays.fill(sch, 0);
+      for (int k = 0; k < t_way; k++)
+        if (constrained[allPc[base + k]])
+          test[allPc[base + k]] = 0;
+      int cc = combination.getColumnNumber(row);
+      for (int column = 0; column < cc; column++) {
+        if (!checker.isValid(test)) {
+          if (size == invalid.length)
+            invalid = Arrays.copyOf(invalid, size * 2);
+          invalid[size++] = (long) row << 32 | column;
+        }
+        // the last parameter changes fastest, in line with the column index
+        for (int k = t_way - 1; k >= 0; k--) {
+          int p = allPc[base + k];
+          if (++sch[k] < value[p]) {
+            if (constrained[p])
+              test[p] = sch[k];
+            break;
+          }
+          sch[k] = 0;
+          if (constrained[p])
+            test[p] = 0;
         }
       }
+      for (int k = 0; k < t_way; k++)
+        test[allPc[base + k]] = -1;
+    }
+    return Arrays.copyOf(invalid, size);
+  }
+
+  /**
+   * Determine whether the row-th parameter combination involves any parameter of MFT.
+   */
+  private boolean isConstrained(int row) {
+    for (int k = row * t_way; k < (row + 1) * t_way; k++) {
+      if (checker.MFT.isConstrained(allPc[k]))
+        return true;
     }
+    return false;
   }
 
   /**
@@ -235,14 +437,14 @@ public class CTModel {
     if ( e == null )
       return null ;
 
-    int[] pos = allPc.get(e.row);
-    int[] sch = ALG.num2val(e.column, pos, t_way, value);
+    int[] pos = getParameterCombination(e.row);
+    int[] sch = schema(e.row, e.column);
     while (!isValid(pos, sch)) {
       covered(pos, sch, 1);
       if ((e = combination.getRandomZeroPosition()) == null)
         return null;
-      pos = allPc.get(e.row);
-      sch = ALG.num2val(e.column, pos, t_way, value);
+      pos = getParameterCombination(e.row);
+      sch = schema(e.row, e.column);
     }
     return new Tuple(pos, sch, parameter);
   }
@@ -269,21 +471,23 @@ public class CTModel {
       return -1;
 
     // iterate each parameter combination
-    long total_covered = 0;
-    for (int[] pos : allPc) {
-      // all possible value combinations
-      int len = ALG.combineValue(pos, value);
-      int[] cover = new int[len];
+    // cover[index] == row + 1 indicates that the value combination is covered, so
+    // that a single array, as large as the largest row, is reused by all rows
+    int max = 0;
+    for (int row = 0; row < uniformRow; row++)
+      max = Math.max(max, combination.getColumnNumber(row));
+    int[] cover = new int[max];
 
+    long total_covered = 0;
+    for (int row = 0, base = 0; row < uniformRow; row++, base += t_way) {
       int covered = 0;
       // for each row in tests
-      int[] sch = new int[t_way];
       for ( int[] tc : suite ) {
-        for (int k = 0; k < t_way; k++)
-          sch[k] = tc[pos[k]];
-        int index = ALG.val2num(pos, sch, t_way, value);
-        if (cover[index] == 0) {
-          cover[index] = 1;
+        int index = 0;
+        for (int k = base; k < base + t_way; k++)
+          index += pcMultiplier[k] * tc[allPc[k]];
+        if (cover[index] != row + 1) {
+          cover[index] = row + 1;
           covered++;
         }
       }
@@ -293,6 +497,41 @@ public class CTModel {
     return combUncovered;
   }
 
+  /**
+   * Get the number of uncovered combinations that involve a given column and
+   * can be covered by a partial test case, for each value of column, i.e.
+   * fitness[v] counts the combinations whose parameters are all fixed, as if
+   * test[column] is assigned to v. The parameter combinations are scanned once
+   * for all values.
+   *
+   * @param test    a complete or partial test case
+   * @param column  index of parameter
+   * @param fitness the array to hold the fitness of each value
+   */
+  public void fitnessValue(final int[] test, int column, long[] fitness) {
+    Arrays.fill(fitness, 0, value[column], 0);
+    for (int row : pcOfParameter[column]) {
+      int base = row * t_way;
+      int index = 0;
+      int multiplier = 0;
+      boolean fixed = true;
+      for (int k = base; k < base + t_way && fixed; k++) {
+        int p = allPc[k];
+        if (p == column)
+          multiplier = pcMultiplier[k];
+        else if (test[p] == -1)
+          fixed = false;
+        else
+          index += pcMultiplier[k] * test[p];
+      }
+      if (!fixed)
+        continue;
+      for (int v = 0; v < value[column]; v++, index += multiplier)
+        if (!combination.getElement(row, index))
+          fitness[v]++;
+    }
+  }
+
   /**
    * Update uncovered combinations according to a given
    * test case.
@@ -311,13 +550,14 @@ public class CTModel {
    */
   private long fitness(final int[] test, int FLAG) {
     long num = 0;
-    // get each combination of C(parameter, t_way)
-    for( int[] position : allPc ) {
-      int[] schema = new int[t_way];
-      for (int k = 0; k < t_way; k++)
-        schema[k] = test[position[k]];
+    // get each combination of C(parameter, t_way), where the row is
+    // the index of combination and the column is given by the multipliers
+    for (int row = 0, base = 0; row < uniformRow; row++, base += t_way) {
+      int column = 0;
+      for (int k = base; k < base + t_way; k++)
+        column += pcMultiplier[k] * test[allPc[k]];
       // if it is covered
-      if (!covered(position, schema, FLAG))
+      if (!covered(row, column, FLAG))
         num++;
     }
     return num;
@@ -334,9 +574,31 @@ public class CTModel {
   public boolean covered(int[] position, int[] schema, int FLAG) {
     // check the value of combination[row][column] to determine cover or not
     // the row and column is computed based on position and schema, respectively
-    int row = ALG.combine2num(position, parameter, t_way);
-    int column = ALG.val2num(position, schema, t_way, value);
+    int row = (int) binomial.rank(parameter, position);
+    int column = 0;
+    for (int k = 0; k < t_way; k++)
+      column += pcMultiplier[row * t_way + k] * schema[k];
+    return covered(row, column, FLAG);
+  }
+
+  /**
+   * Return the value combination of a given column in the row-th
+   * parameter combination, which is decoded by the multipliers.
+   */
+  public int[] schema(int row, int column) {
+    int[] sch = new int[t_way];
+    for (int k = 0; k < t_way; k++) {
+      int p = allPc[row * t_way + k];
+      sch[k] = column / pcMultiplier[row * t_way + k] % value[p];
+    }
+    return sch;
+  }
 
+  /**
+   * Determine whether the column-th value combination of the row-th parameter
+   * combination is covered or not, where FLAG is the same as above.
+   */
+  public boolean covered(int row, int column, int FLAG) {
     // determiner whether combination is covered or not
     boolean cov = combination.getElement(row, column);
     if ( !cov & FLAG == 1) {
@@ -347,6 +609,20 @@ public class CTModel {
     return cov;
   }
 
+  /**
+   * Return a canonical form of this model, where the literals of each constraint
+   * and the constraints themselves are sorted and deduplicated, so that equal
+   * models have equal forms regardless of how their constraints are written.
+   */
+  public String canonicalForm() {
+    TreeSet<String> cons = new TreeSet<>();
+    for (int[] c : constraint) {
+      int[] literals = Arrays.stream(c).map(Math::abs).distinct().sorted().toArray();
+      cons.add(Arrays.toString(literals));
+    }
+    return "t=" + t_way + ";v=" + Arrays.toString(value) + ";c=" + cons;
+  }
+
   /**
    * Display basic information.
    */
@@ -357,6 +633,7 @@ public class CTModel {
     System.out.println("size of original constraints = " + constraint.size());
     constraint.forEach(x -> System.out.println(Arrays.toString(x)));
     System.out.println("constrained parameters = " + constrainedParameters);
+    System.out.println("size of MFT = " + checker.MFT.size());
     System.out.println("raw space = " + combRaw + ", valid combinations = " + combAll);
     System.out.println("currently uncovered valid combinations = " + combUncovered);
   }
@@ -3,25 +3,42 @@ package com.neo.common;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 
 public class ALG {
 
+  // the shared table of binomial coefficients, which is extended on demand
+  private static volatile Binomial binomial = new Binomial(64, 6);
+
+  /**
+   * Return a shared table that contains C(n, m).
+   */
+  public static Binomial binomial(int n, int m) {
+    Binomial table = binomial;
+    if (!table.contains(n, m)) {
+      synchronized (ALG.class) {
+        table = binomial;
+        if (!table.contains(n, m)) {
+          int size = Math.max(n, 2 * table.getN());
+          table = new Binomial(size, Math.max(m, table.getM()));
+          binomial = table;
+        }
+      }
+    }
+    return table;
+  }
+
   /**
    * Calculate binomial coefficient C(n, m), where C(n, 0) = 1.
    *
    * @param n number of parameters
    * @param m number of chosen parameters
    * @return C(n, m)
+   * @throws ArithmeticException if C(n, m) overflows int
    */
   public static int combine(int n, int m) {
-    int ret = 1;
-    int p = n;
-    for (int x = 1; x <= m; x++, p--) {
-      ret = ret * p;
-      ret = ret / x;
-    }
-    return ret;
+    if (m < 0)
+      return 1;
+    return binomial(n, m).getInt(n, m);
   }
 
   /**
@@ -52,11 +69,7 @@ public class ALG {
    * @return index of c
    */
   public static int combine2num(final int[] c, int n, int m) {
-    int ret = combine(n, m);
-    for (int i = 0; i < m; i++) {
-      ret -= combine(n - c[i] - 1, m - i);
-    }
-    return ret - 1;
+    return Math.toIntExact(binomial(n, m).rank(n, c));
   }
 
   /**
@@ -73,13 +86,7 @@ public class ALG {
    */
   public static int[] num2combine(int t, int n, int m) {
     int[] ret = new int[m];
-    t = t + 1;
-    int j = 1, k;
-    for (int i = 0; i < m; ret[i++] = j++) {
-      for (; t > (k = combine(n - j, m - i - 1)); t -= k, j++) ;
-    }
-    for (int p = 0; p < m; p++)
-      ret[p] = ret[p] - 1;
+    binomial(n, m).unrank(n, t, ret);
     return ret;
   }
 
@@ -93,20 +100,47 @@ public class ALG {
    */
   public static ArrayList<int[]> allCombination(int n, int m) {
     ArrayList<int[]> data = new ArrayList<>();
-    dfs(data, new int[m], m, 1, n - m + 1, 0);
+    if (m > n)
+      return data;
+    int[] c = firstCombination(m);
+    do {
+      data.add(c.clone());
+    } while (nextCombination(c, n));
     return data;
   }
 
-  private static void dfs(List<int[]> data, int[] list, int k_left, int from, int to, int index) {
-    if (k_left == 0) {
-      data.add(list.clone());
-      return;
-    }
-    for (int i = from; i <= to; ++i ) {
-      list[index++] = i - 1;
-      dfs(data, list, k_left - 1, i + 1, to + 1, index);
-      index -= 1;
-    }
+  /**
+   * Return the first parameter combination of C(n, m), i.e. {0, 1, ..., m - 1}.
+   *
+   * @param m number of chosen parameters
+   */
+  public static int[] firstCombination(int m) {
+    int[] c = new int[m];
+    for (int i = 0; i < m; i++)
+      c[i] = i;
+    return c;
+  }
+
+  /**
+   * Advance a parameter combination of C(n, m) to its lexicographic successor
+   * in place, so that all combinations can be enumerated without allocation.
+   * nextCombination({0, 3}, 4) gives {1, 2}.
+   *
+   * @param c a parameter combination, which is modified in place
+   * @param n number of parameters
+   * @return false if c is already the last combination
+   */
+  public static boolean nextCombination(int[] c, int n) {
+    int m = c.length;
+    int i = m - 1;
+    while (i >= 0 && c[i] == n - m + i)
+      i--;
+    if (i < 0)
+      return false;
+    c[i]++;
+    for (int j = i + 1; j < m; j++)
+      c[j] = c[j - 1] + 1;
+    return true;
   }
 
   /**
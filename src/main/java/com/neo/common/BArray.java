@@ -1,44 +1,81 @@
 package com.neo.common;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * A two dimensional array where each element is a boolean variable.
+ *
+ * The rows are packed one after another into a bitset of long words. The number
+ * of zero elements of each block of words is maintained by a Fenwick tree, which
+ * gives the rank and select operations used to sample a random zero position.
  */
 public class BArray {
 
-  private boolean[][] matrix;
-  private Random random = new Random();
+  // number of words in a block of the Fenwick tree
+  private static final int BLOCK_WORDS = 8;
 
-  // zero positions: each zero position is represented as a pair <row, column>
-  private int[] zero_row;
-  private int[] zero_column;
-  private int zero_total;
+  private long[] words;
+  private int[] rowLength;      // number of elements of each row, -1 if not initialized
+  private long[] rowOffset;     // index of the first bit of each row
+  private SplittableRandom random = new SplittableRandom();
+
+  // zero positions: tree[] is the Fenwick tree of the number of zeros in each block
+  private long[] tree;
+  private long zero_total;
 
   public BArray(int row) {
-    matrix = new boolean[row][];
+    rowLength = new int[row];
     zero_total = 0 ;
     for (int i = 0; i < row; i++)
-      matrix[i] = null;
+      rowLength[i] = -1;
   }
 
   public BArray(int row, int column) {
-    matrix = new boolean[row][column];
-    zero_total = row * column;
-    zero_row = new int[zero_total];
-    zero_column = new int[zero_total];
-    int index = 0;
-    for (int i = 0; i < row; i++) {
-      for (int j = 0; j < column; j++) {
-        matrix[i][j] = false;
-        zero_row[index] = i;
-        zero_column[index] = j;
-        index += 1;
-      }
-    }
+    this(row);
+    for (int i = 0; i < row; i++)
+      rowLength[i] = column;
+    initializeZeros();
+  }
+
+  /**
+   * Set the seed of the random stream used by getRandomZeroPosition().
+   */
+  public void setSeed(long seed) {
+    random = new SplittableRandom(seed);
   }
 
+  /**
+   * Return the number of rows.
+   */
+  public int getRowNumber() {
+    return rowLength.length;
+  }
+
+  /**
+   * Return the number of elements in a specified row.
+   *
+   * @param index index of row
+   */
+  public int getColumnNumber(int index) {
+    return Math.max(rowLength[index], 0);
+  }
+
+  /**
+   * Return a copy of the matrix in the form of boolean[][]. Note that this
+   * allocates one byte per element, use getElement() whenever possible.
+   *
+   * Since the elements are packed into a bitset, this is a snapshot rather
+   * than the backing matrix: later changes of this array are not reflected
+   * in it, and writing to it does not change this array. Use setElement()
+   * to change an element.
+   */
   public boolean[][] getMatrix(){
+    boolean[][] matrix = new boolean[rowLength.length][];
+    for (int i = 0; i < rowLength.length; i++) {
+      matrix[i] = new boolean[getColumnNumber(i)];
+      for (int j = 0; j < matrix[i].length; j++)
+        matrix[i][j] = getElement(i, j);
+    }
     return matrix;
   }
 
@@ -49,28 +86,40 @@ public class BArray {
    * @param column number of elements in that row
    */
   public void initializeRow(int index, int column) {
-    if (matrix[index] == null) {
-      matrix[index] = new boolean[column];
-      for (int j = 0; j < column; j++)
-        matrix[index][j] = false;
+    if (rowLength[index] == -1) {
+      rowLength[index] = column;
       zero_total += column;
     }
   }
 
   /**
    * If the matrix is initialized by row, then this method should be
-   * used to initialize the zero positions.
+   * used to initialize the bitset and the zero positions.
    */
   public void initializeZeros() {
-    zero_row = new int[zero_total];
-    zero_column = new int[zero_total];
-    int index = 0;
-    for (int i = 0 ; i < matrix.length ; i++ ) {
-      for (int j = 0 ; j < matrix[i].length ; j++) {
-        zero_row[index] = i;
-        zero_column[index] = j;
-        index += 1;
-      }
+    // assign the first bit of each row
+    rowOffset = new long[rowLength.length + 1];
+    long total = 0;
+    for (int i = 0; i < rowLength.length; i++) {
+      rowOffset[i] = total;
+      total += getColumnNumber(i);
+    }
+    rowOffset[rowLength.length] = total;
+
+    // all elements are zero, while the padding bits of the last word are one
+    words = new long[(int) ((total + 63) >>> 6)];
+    if ((total & 63) != 0)
+      words[words.length - 1] = -1L << (total & 63);
+    zero_total = total;
+
+    // build the Fenwick tree in linear time
+    int blocks = (words.length + BLOCK_WORDS - 1) / BLOCK_WORDS;
+    tree = new long[blocks + 1];
+    for (int b = 0; b < blocks; b++) {
+      tree[b + 1] += countBlockZeros(b);
+      int parent = (b + 1) + ((b + 1) & -(b + 1));
+      if (parent <= blocks)
+        tree[parent] += tree[b + 1];
     }
   }
 
@@ -82,7 +131,8 @@ public class BArray {
    * @return false or true
    */
   public boolean getElement(int i, int j) {
-    return matrix[i][j];
+    long bit = rowOffset[i] + j;
+    return (words[(int) (bit >>> 6)] & (1L << bit)) != 0;
   }
 
   /**
@@ -93,7 +143,33 @@ public class BArray {
    * @param value new value
    */
   public void setElement(int i, int j, boolean value) {
-    matrix[i][j] = value;
+    long bit = rowOffset[i] + j;
+    int w = (int) (bit >>> 6);
+    long mask = 1L << bit;
+    if (((words[w] & mask) != 0) == value)
+      return;
+    words[w] ^= mask;
+    int delta = value ? -1 : 1;
+    zero_total += delta;
+    for (int b = w / BLOCK_WORDS + 1; b < tree.length; b += b & -b)
+      tree[b] += delta;
+  }
+
+  /**
+   * Return the number of zero elements in the matrix.
+   */
+  public long getZeroNumber() {
+    return zero_total;
+  }
+
+  /**
+   * Return the number of zero elements in a specified row, which is
+   * counted by word-level popcount.
+   *
+   * @param index index of row
+   */
+  public long getZeroNumber(int index) {
+    return countZeros(rowOffset[index], rowOffset[index + 1]);
   }
 
   /**
@@ -104,8 +180,8 @@ public class BArray {
    */
   public String getRow(int index) {
     StringBuilder sb = new StringBuilder();
-    for (boolean b : matrix[index]) {
-      String str = b ? "1 " : "0 ";
+    for (int j = 0; j < getColumnNumber(index); j++) {
+      String str = getElement(index, j) ? "1 " : "0 ";
       sb.append(str);
     }
     return sb.toString();
@@ -115,22 +191,74 @@ public class BArray {
    * Return the index of row and column of a random zero position.
    */
   public Position getRandomZeroPosition() {
-    while (zero_total > 0) {
-      int index = random.nextInt(zero_total);
-      int row = zero_row[index];
-      int column = zero_column[index];
-      if (matrix[row][column]) {
-        // move the pair to the last position (i.e. index = zero_total - 1)
-        int right = zero_total - 1;
-        zero_row[index] = zero_row[right];
-        zero_column[index] = zero_column[right];
-        zero_total -= 1;
-      }
-      else {
-        return new Position(row, column);
+    if (zero_total <= 0)
+      return null;
+    long rank = random.nextLong(zero_total);
+    long bit = select(rank);
+
+    // find the last row whose first bit is not larger than bit
+    int low = 0, high = rowLength.length - 1;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (rowOffset[mid] <= bit)
+        low = mid;
+      else
+        high = mid - 1;
+    }
+    return new Position(low, (int) (bit - rowOffset[low]));
+  }
+
+  /**
+   * Return the index of the (rank + 1)-th zero bit, where rank starts at 0.
+   */
+  private long select(long rank) {
+    // descend the Fenwick tree to find the block that contains the zero
+    int block = 0;
+    for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+      if (block + step < tree.length && tree[block + step] <= rank) {
+        block += step;
+        rank -= tree[block];
       }
     }
-    return null;
+
+    // scan the words of that block
+    int w = block * BLOCK_WORDS;
+    long zeros = ~words[w];
+    while (Long.bitCount(zeros) <= rank) {
+      rank -= Long.bitCount(zeros);
+      zeros = ~words[++w];
+    }
+    for (long k = 0; k < rank; k++)
+      zeros &= zeros - 1;
+    return ((long) w << 6) + Long.numberOfTrailingZeros(zeros);
   }
-}
 
+  /**
+   * Count the number of zero bits in the b-th block.
+   */
+  private long countBlockZeros(int b) {
+    int from = b * BLOCK_WORDS;
+    int to = Math.min(from + BLOCK_WORDS, words.length);
+    long count = 0;
+    for (int w = from; w < to; w++)
+      count += Long.bitCount(~words[w]);
+    return count;
+  }
+
+  /**
+   * Count the number of zero bits in [from, to).
+   */
+  private long countZeros(long from, long to) {
+    long count = 0;
+    while (from < to) {
+      int w = (int) (from >>> 6);
+      long end = Math.min(to, ((long) w + 1) << 6);
+      long mask = -1L << from;
+      if ((end & 63) != 0)
+        mask &= ~(-1L << end);
+      count += Long.bitCount(~words[w] & mask);
+      from = end;
+    }
+    return count;
+  }
+}
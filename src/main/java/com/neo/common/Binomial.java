@@ -0,0 +1,135 @@
+package com.neo.common;
+
+/**
+ * A precomputed Pascal triangle of binomial coefficients C(i, j), where i <= n
+ * and j <= m, together with the table-driven ranking and unranking of parameter
+ * combinations in lexicographic order (i.e. the order of ALG.allCombination).
+ *
+ * The coefficients are stored as long. A coefficient that overflows is marked
+ * in the table, and accessing it throws an ArithmeticException rather than
+ * returning a wrapped value.
+ */
+public final class Binomial {
+
+  private static final long OVERFLOW = -1;
+
+  private final int n;
+  private final int m;
+  // table[i][j] = C(i, j), or OVERFLOW
+  private final long[][] table;
+
+  /**
+   * Build the table of C(i, j) for all i <= n and j <= m.
+   *
+   * @param n maximum number of parameters
+   * @param m maximum number of chosen parameters
+   */
+  public Binomial(int n, int m) {
+    this.n = n;
+    this.m = m;
+    table = new long[n + 1][m + 1];
+    for (int i = 0; i <= n; i++) {
+      table[i][0] = 1;
+      for (int j = 1; j <= Math.min(i, m); j++) {
+        long a = table[i - 1][j - 1];
+        long b = table[i - 1][j];
+        if (a == OVERFLOW || b == OVERFLOW || a + b < 0)
+          table[i][j] = OVERFLOW;
+        else
+          table[i][j] = a + b;
+      }
+    }
+  }
+
+  public int getN() {
+    return n;
+  }
+
+  public int getM() {
+    return m;
+  }
+
+  /**
+   * Determine whether C(i, j) is within the range of this table.
+   */
+  public boolean contains(int i, int j) {
+    return i <= n && j <= m;
+  }
+
+  /**
+   * Return C(i, j), where C(i, j) = 0 if j < 0 or j > i.
+   *
+   * @throws ArithmeticException if C(i, j) overflows long
+   */
+  public long get(int i, int j) {
+    if (j < 0 || j > i)
+      return 0;
+    if (!contains(i, j))
+      throw new IllegalArgumentException("C(" + i + ", " + j + ") is out of the table of C(" + n + ", " + m + ")");
+    long ret = table[i][j];
+    if (ret == OVERFLOW)
+      throw new ArithmeticException("C(" + i + ", " + j + ") overflows long");
+    return ret;
+  }
+
+  /**
+   * Return C(i, j) as an int.
+   *
+   * @throws ArithmeticException if C(i, j) overflows int
+   */
+  public int getInt(int i, int j) {
+    long ret = get(i, j);
+    if (ret > Integer.MAX_VALUE)
+      throw new ArithmeticException("C(" + i + ", " + j + ") overflows int");
+    return (int) ret;
+  }
+
+  /**
+   * Calculate the index of a parameter combination in all parameter
+   * combinations of C(p, c.length), where index starts at 0.
+   * This takes O(c.length) table lookups.
+   *
+   * @param p number of parameters, p <= n
+   * @param c a parameter combination in ascending order
+   */
+  public long rank(int p, final int[] c) {
+    int k = c.length;
+    long ret = get(p, k) - 1;
+    for (int i = 0; i < k; i++)
+      ret -= get(p - c[i] - 1, k - i);
+    return ret;
+  }
+
+  /**
+   * Calculate the index-th parameter combination of C(p, c.length), where
+   * index starts at 0, and write it into c. Each element is found by a
+   * binary search on the table.
+   *
+   * @param p     number of parameters, p <= n
+   * @param index index of required parameter combination
+   * @param c     the array to hold the parameter combination
+   */
+  public void unrank(int p, long index, int[] c) {
+    int k = c.length;
+    // the combinatorial number system: C(p, k) - 1 - index is represented by
+    // sum_i C(d_i, k - i), where d_0 > d_1 > ... and d_i = p - 1 - c[i]
+    long r = get(p, k) - 1 - index;
+    int upper = p - 1;
+    for (int i = 0; i < k; i++) {
+      int j = k - i;
+      // the largest d in [j - 1, upper] such that C(d, j) <= r
+      int low = j - 1, high = upper;
+      while (low < high) {
+        int mid = (low + high + 1) >>> 1;
+        if (get(mid, j) <= r)
+          low = mid;
+        else
+          high = mid - 1;
+      }
+      r -= get(low, j);
+      c[i] = p - 1 - low;
+      upper = low - 1;
+    }
+  }
+
+}
@@ -0,0 +1,209 @@
+package com.neo.common;
+
+import java.util.Arrays;
+
+/**
+ * A flat array of coverage counters, indicating how many times each combination
+ * is covered by a test suite, where -1 indicates an invalid combination.
+ *
+ * The width of each counter is chosen by the size of test suite, i.e. byte
+ * counters when N < 127, short counters when N < 32767, and int counters
+ * otherwise. The counters are reset in place rather than reallocated.
+ */
+public abstract class CoverageCounter {
+
+  // the indexes of invalid combinations
+  protected final int[] invalid;
+
+  protected CoverageCounter(int[] invalid) {
+    this.invalid = invalid;
+  }
+
+  /**
+   * Create a counter array that is wide enough for a test suite of size N.
+   *
+   * @param size    number of combinations
+   * @param invalid indexes of invalid combinations
+   * @param N       size of test suite
+   */
+  public static CoverageCounter create(int size, int[] invalid, int N) {
+    CoverageCounter counter;
+    if (N < Byte.MAX_VALUE)
+      counter = new ByteCounter(size, invalid);
+    else if (N < Short.MAX_VALUE)
+      counter = new ShortCounter(size, invalid);
+    else
+      counter = new IntCounter(size, invalid);
+    counter.reset();
+    return counter;
+  }
+
+  /**
+   * Return the maximum size of test suite that the counters of a given width
+   * can support, where the width is determined by a test suite of size N.
+   */
+  public static int bound(int N) {
+    if (N < Byte.MAX_VALUE)
+      return Byte.MAX_VALUE;
+    else if (N < Short.MAX_VALUE)
+      return Short.MAX_VALUE;
+    return Integer.MAX_VALUE;
+  }
+
+  /**
+   * Return the maximum size of test suite that this counter array supports.
+   */
+  public abstract int bound();
+
+  public abstract int get(int index);
+
+  /**
+   * Increase the counter by one and return the new value.
+   */
+  public abstract int increase(int index);
+
+  /**
+   * Decrease the counter by one and return the new value.
+   */
+  public abstract int decrease(int index);
+
+  /**
+   * Reset all counters: -1 for invalid combinations, 0 for valid combinations.
+   */
+  public abstract void reset();
+
+  /**
+   * Return a new counter array with the same width and counters.
+   */
+  public abstract CoverageCounter copy();
+
+  /**
+   * Copy all counters of another counter array in place, which should have
+   * the same size and width as this one.
+   */
+  public abstract void assign(CoverageCounter other);
+
+  private static class ByteCounter extends CoverageCounter {
+    private final byte[] count;
+
+    ByteCounter(int size, int[] invalid) {
+      super(invalid);
+      count = new byte[size];
+    }
+
+    public int bound() {
+      return Byte.MAX_VALUE;
+    }
+
+    public int get(int index) {
+      return count[index];
+    }
+
+    public int increase(int index) {
+      return ++count[index];
+    }
+
+    public int decrease(int index) {
+      return --count[index];
+    }
+
+    public void reset() {
+      Arrays.fill(count, (byte) 0);
+      for (int i : invalid)
+        count[i] = -1;
+    }
+
+    public CoverageCounter copy() {
+      ByteCounter ret = new ByteCounter(count.length, invalid);
+      System.arraycopy(count, 0, ret.count, 0, count.length);
+      return ret;
+    }
+
+    public void assign(CoverageCounter other) {
+      System.arraycopy(((ByteCounter) other).count, 0, count, 0, count.length);
+    }
+  }
+
+  private static class ShortCounter extends CoverageCounter {
+    private final short[] count;
+
+    ShortCounter(int size, int[] invalid) {
+      super(invalid);
+      count = new short[size];
+    }
+
+    public int bound() {
+      return Short.MAX_VALUE;
+    }
+
+    public int get(int index) {
+      return count[index];
+    }
+
+    public int increase(int index) {
+      return ++count[index];
+    }
+
+    public int decrease(int index) {
+      return --count[index];
+    }
+
+    public void reset() {
+      Arrays.fill(count, (short) 0);
+      for (int i : invalid)
+        count[i] = -1;
+    }
+
+    public CoverageCounter copy() {
+      ShortCounter ret = new ShortCounter(count.length, invalid);
+      System.arraycopy(count, 0, ret.count, 0, count.length);
+      return ret;
+    }
+
+    public void assign(CoverageCounter other) {
+      System.arraycopy(((ShortCounter) other).count, 0, count, 0, count.length);
+    }
+  }
+
+  private static class IntCounter extends CoverageCounter {
+    private final int[] count;
+
+    IntCounter(int size, int[] invalid) {
+      super(invalid);
+      count = new int[size];
+    }
+
+    public int bound() {
+      return Integer.MAX_VALUE;
+    }
+
+    public int get(int index) {
+      return count[index];
+    }
+
+    public int increase(int index) {
+      return ++count[index];
+    }
+
+    public int decrease(int index) {
+      return --count[index];
+    }
+
+    public void reset() {
+      Arrays.fill(count, 0);
+      for (int i : invalid)
+        count[i] = -1;
+    }
+
+    public CoverageCounter copy() {
+      IntCounter ret = new IntCounter(count.length, invalid);
+      System.arraycopy(count, 0, ret.count, 0, count.length);
+      return ret;
+    }
+
+    public void assign(CoverageCounter other) {
+      System.arraycopy(((IntCounter) other).count, 0, count, 0, count.length);
+    }
+  }
+
+}
@@ -4,13 +4,25 @@ import com.neo.combinatorial.CTModel;
 import com.neo.combinatorial.TestCase;
 import com.neo.combinatorial.TestSuite;
 import com.neo.domain.Result;
+import com.neo.generator.AETG;
+import com.neo.generator.Generator;
+import com.neo.generator.IPOG;
 import com.neo.generator.SA;
+import com.neo.service.Job;
+import com.neo.service.JobService;
+import com.neo.service.ResultCache;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.servlet.http.HttpServletRequest;
 import java.io.BufferedReader;
@@ -22,13 +34,111 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 public class DockerController {
 
+    @Autowired
+    private JobService jobService;
+
+    @Autowired
+    private ResultCache cache;
+
+    // the default time limit of generation in seconds, 0 indicates no limit
+    @Value("${generation.time-limit:0}")
+    private long defaultTimeLimit;
+
     @RequestMapping(value = "", method = RequestMethod.POST, produces = "application/json;charset=UTF-8")
     // ACTS 3.0 version
     public Result method(HttpServletRequest request) {
+        JSONObject jsonObject = new JSONObject(readBody(request));
+        return generate(jsonObject, null);
+    }
+
+    /**
+     * Submit a generation job with the same request body as above, and return
+     * the job immediately. The job is then polled by its id.
+     */
+    @RequestMapping(value = "/jobs", method = RequestMethod.POST, produces = "application/json;charset=UTF-8")
+    public ResponseEntity<Job> submit(HttpServletRequest request) {
+        JSONObject jsonObject = new JSONObject(readBody(request));
+        try {
+            Job job = jobService.submit(running -> generate(jsonObject, running));
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    /**
+     * Return the status of a job.
+     */
+    @GetMapping(value = "/jobs/{id}", produces = "application/json;charset=UTF-8")
+    public ResponseEntity<Job> status(@PathVariable String id) {
+        Job job = jobService.get(id);
+        if (job == null)
+            return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(job);
+    }
+
+    /**
+     * Return the result of a job, or its status if it is not finished. The
+     * result of a cancelled job is the best covering array found before.
+     */
+    @GetMapping(value = "/jobs/{id}/result", produces = "application/json;charset=UTF-8")
+    public ResponseEntity<?> result(@PathVariable String id) {
+        Job job = jobService.get(id);
+        if (job == null)
+            return ResponseEntity.notFound().build();
+        if (job.getStatus() != Job.Status.DONE && job.getStatus() != Job.Status.CANCELLED)
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(job);
+        // a job cancelled before it starts has no result
+        if (job.getResult() == null)
+            return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(job.getResult());
+    }
+
+    /**
+     * Return the best covering array found so far, while the job is running.
+     */
+    @GetMapping(value = "/jobs/{id}/best", produces = "application/json;charset=UTF-8")
+    public ResponseEntity<Result> best(@PathVariable String id) {
+        Job job = jobService.get(id);
+        if (job == null || job.getBestResult() == null)
+            return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(job.getBestResult());
+    }
+
+    /**
+     * Stream the progress of a job as server-sent events: "status" when the
+     * job starts or finishes, "probe" when a new size is searched, "progress"
+     * periodically within a search, and "solution" with every better covering
+     * array. The stream ends when the job is finished.
+     */
+    @GetMapping(value = "/jobs/{id}/events", produces = "text/event-stream")
+    public ResponseEntity<SseEmitter> events(@PathVariable String id) {
+        Job job = jobService.get(id);
+        if (job == null)
+            return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(jobService.subscribe(job));
+    }
+
+    /**
+     * Cancel a job, which then keeps the best covering array found so far.
+     */
+    @RequestMapping(value = "/jobs/{id}", method = RequestMethod.DELETE, produces = "application/json;charset=UTF-8")
+    public ResponseEntity<Job> cancel(@PathVariable String id) {
+        Job job = jobService.get(id);
+        if (job == null)
+            return ResponseEntity.notFound().build();
+        job.cancel();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    private String readBody(HttpServletRequest request) {
         BufferedReader br;
         StringBuilder sb = null;
         String reqBody = null;
@@ -45,10 +155,14 @@ public class DockerController {
             // TODO Auto-generated catch block
             e.printStackTrace();
         }
-        JSONObject jsonObject = new JSONObject(reqBody);
-
-
+        return reqBody;
+    }
 
+    /**
+     * Run the generation of a request, whose progress is reported to a job if
+     * it is not null.
+     */
+    private Result generate(JSONObject jsonObject, Job job) {
         int parameters = (Integer)jsonObject.get("parameter");
         int strength = (Integer)jsonObject.get("strength");
         JSONArray jsonArray = (JSONArray)jsonObject.get("values");
@@ -67,7 +181,31 @@ public class DockerController {
         // run generation algorithm
         CTModel model = new CTModel(parameters, values, strength, constraint);
         TestSuite ts = new TestSuite();
-        SA gen = new SA(false);
+        // "sa" (default) for small covering arrays, "aetg" for fast answers,
+        // or "ipog" for models with many parameters
+        String algorithm = jsonObject.optString("algorithm", "sa").toLowerCase();
+        Generator gen = generator(algorithm);
+        // an optional greedy algorithm for the initial test suites of SA
+        String initial = jsonObject.optString("initial", "").toLowerCase();
+        if (!initial.isEmpty()) {
+            if (!(gen instanceof SA) || initial.equals("sa"))
+                throw new IllegalArgumentException("initial should be a greedy algorithm for sa");
+            ((SA) gen).setInitialGenerator(generator(initial));
+            algorithm += ";initial=" + initial;
+        }
+        // an optional seed to reproduce a previous run
+        if (jsonObject.has("seed"))
+            gen.setSeed(jsonObject.getLong("seed"));
+        // an optional time limit in seconds, after which the best covering array so far is returned
+        gen.setTimeLimit(jsonObject.optLong("timeLimit", defaultTimeLimit), TimeUnit.SECONDS);
+
+        // identical models are answered from the cache, where a given seed is part of the key
+        String key = ResultCache.key(model, algorithm + (jsonObject.has("seed") ? ";seed=" + gen.getSeed() : ""));
+        Result cached = cache.get(key);
+        if (cached != null)
+            return cached;
+        if (job != null)
+            job.attach(gen);
 
         Instant start = Instant.now();
         gen.generation(model, ts);
@@ -86,7 +224,10 @@ public class DockerController {
 
 
 
-        Result result =new Result(testsuiteArray,ts.getTestSuitetime(),ts.getTestSuiteSize());
+        Result result =new Result(testsuiteArray,ts.getTestSuitetime(),ts.getTestSuiteSize(),gen.getSeed());
+        // a run that is cancelled or out of time may not give the best result
+        if (!gen.getBudget().isExhausted())
+            cache.put(key, result);
 
 
         /*
@@ -97,6 +238,30 @@ public class DockerController {
         return result;
     }
 
+    /**
+     * Return a new generator of a given algorithm.
+     */
+    private static Generator generator(String algorithm) {
+        switch (algorithm) {
+            case "sa":
+                return new SA(false);
+            case "aetg":
+                return new AETG();
+            case "ipog":
+                return new IPOG();
+            default:
+                throw new IllegalArgumentException("unknown algorithm: " + algorithm);
+        }
+    }
+
+    /**
+     * Return the hit, miss and eviction counts and the size of the result cache.
+     */
+    @GetMapping(value = "/cache/stats", produces = "application/json;charset=UTF-8")
+    public Map<String, Long> cacheStats() {
+        return cache.getStats();
+    }
+
     /**
      * only for health check
      * @return
@@ -105,4 +270,4 @@ public class DockerController {
     public String healthCheck(){
         return "ok";
     }
-}
\ No newline at end of file
+}
@@ -6,6 +6,7 @@ public class Result {
     private ArrayList<int[]> testsuite;
     private long time;
     private int size;
+    private long seed;
 
     public Result(ArrayList<int[]>testsuite, long time,int size){
         this.testsuite = testsuite;
@@ -13,6 +14,11 @@ public class Result {
         this.size=size;
     }
 
+    public Result(ArrayList<int[]>testsuite, long time, int size, long seed){
+        this(testsuite, time, size);
+        this.seed = seed;
+    }
+
     public double getTime() {
         return time;
     }
@@ -31,4 +37,15 @@ public class Result {
     public void setTime(long time) {
         this.time = time;
     }
+
+    /**
+     * The seed of generation, with which the same test suite can be reproduced.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,173 @@
+package com.neo.generator;
+
+import com.neo.combinatorial.CTModel;
+import com.neo.combinatorial.TestCase;
+import com.neo.combinatorial.TestSuite;
+import com.neo.combinatorial.Tuple;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The AETG-style greedy generator, which adds one test case at a time until
+ * all combinations are covered.
+ *
+ * Each test case is the best of a number of candidates. A candidate starts from
+ * a random uncovered combination, and the remaining parameters are fixed in a
+ * random order, each to the valid value that covers the most uncovered
+ * combinations with the parameters fixed so far. Invalid combinations are
+ * detected lazily by CTModel.getAnUncoveredTuple(), so that no up-front
+ * removal is required.
+ *
+ * This is much faster than SA, at the cost of a larger covering array.
+ */
+public class AETG implements Generator {
+
+  // the number of candidates of each test case
+  private int candidates;
+
+  private SplittableRandom random;
+  private long seed;
+  private ProgressListener listener = ProgressListener.NONE;
+  private Budget budget = new Budget();
+
+  public AETG() {
+    this(50);
+  }
+
+  public AETG(int candidates) {
+    if (candidates < 1)
+      throw new IllegalArgumentException("the number of candidates should be at least 1");
+    this.candidates = candidates;
+    setSeed(ThreadLocalRandom.current().nextLong());
+  }
+
+  @Override
+  public void setSeed(long seed) {
+    this.seed = seed;
+    this.random = new SplittableRandom(seed);
+  }
+
+  @Override
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Set the progress listener, which receives a round after each test case,
+   * where N and round are the current size of test suite.
+   */
+  @Override
+  public void setProgressListener(ProgressListener listener) {
+    this.listener = listener == null ? ProgressListener.NONE : listener;
+  }
+
+  /**
+   * Set the budget of generation. When the budget is exhausted, the
+   * generation stops and returns an empty test suite, as the test cases
+   * so far do not form a covering array.
+   */
+  @Override
+  public void setBudget(Budget budget) {
+    this.budget = budget;
+  }
+
+  @Override
+  public Budget getBudget() {
+    return budget;
+  }
+
+  @Override
+  public void generation(CTModel model, TestSuite ts) {
+    budget.start();
+    random = new SplittableRandom(seed);
+    model.setSeed(seed);
+    model.initialization();
+
+    ArrayList<int[]> A = new ArrayList<>();
+    int[] test = new int[model.parameter];
+    long[] gains = new long[Arrays.stream(model.value).max().orElse(0)];
+    Tuple tuple;
+    while ((tuple = model.getAnUncoveredTuple()) != null) {
+      if (budget.isExhausted())
+        return;
+
+      int[] best = null;
+      long bestFitness = -1;
+      for (int i = 0; i < candidates; i++) {
+        long fitness = candidate(model, tuple, test, gains);
+        if (fitness > bestFitness) {
+          best = test.clone();
+          bestFitness = fitness;
+        }
+      }
+      // the tuple is valid, so that at least one candidate is expected
+      if (best == null)
+        throw new IllegalStateException("no valid test case covers " + tuple);
+
+      model.updateCombination(best);
+      A.add(best);
+      listener.onRound(A.size(), A.size(), model.getCombUncovered());
+    }
+
+    listener.onSolution(SA.copy(A));
+    for (int[] tc : A)
+      ts.suite.add(new TestCase(tc));
+  }
+
+  /**
+   * Construct a candidate test case that covers a given valid tuple, and
+   * return its fitness, or -1 if some parameter has no valid value.
+   *
+   * Each uncovered combination is counted exactly once, by the gain of the
+   * last fixed parameter in it, so that the fitness is the sum of the gains
+   * plus the tuple itself.
+   *
+   * @param test  the array to hold the candidate
+   * @param gains a buffer of the gain of each value
+   */
+  private long candidate(CTModel model, Tuple tuple, int[] test, long[] gains) {
+    System.arraycopy(tuple.test, 0, test, 0, test.length);
+    long fitness = 1;
+
+    // the free parameters in a random order
+    int[] order = new int[model.parameter - tuple.length];
+    for (int p = 0, k = 0; p < model.parameter; p++)
+      if (test[p] == -1)
+        order[k++] = p;
+    for (int i = order.length - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int tmp = order[i];
+      order[i] = order[j];
+      order[j] = tmp;
+    }
+
+    for (int p : order) {
+      // the valid value with the largest gain, where ties are broken at random
+      model.fitnessValue(test, p, gains);
+      int value = -1;
+      long gain = -1;
+      int ties = 0;
+      for (int v = 0; v < model.value[p]; v++) {
+        test[p] = v;
+        if (!model.isValid(test, p))
+          continue;
+        if (gains[v] > gain) {
+          value = v;
+          gain = gains[v];
+          ties = 1;
+        } else if (gains[v] == gain && random.nextInt(++ties) == 0) {
+          value = v;
+        }
+      }
+      if (value == -1)
+        return -1;
+      test[p] = value;
+      fitness += gain;
+    }
+    return fitness;
+  }
+
+}
@@ -0,0 +1,116 @@
+package com.neo.generator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The budget of a generation run, i.e. a cancellation token with an optional
+ * wall-clock time limit. The time limit is counted from start(), which is
+ * called at the beginning of generation. A budget can be shared by several
+ * threads, and it is exhausted once cancelled or out of time.
+ *
+ * A budget is single-use with respect to cancellation: start() does not reset
+ * it, so that a cancellation before the generation starts is not lost, and a
+ * cancelled run can be told apart after it returns. To generate again after
+ * a cancellation, give the generator a new budget.
+ *
+ * A generator that runs another one as a part of its generation gives it a
+ * nested() budget, whose start() does not restart the time limit of the run.
+ */
+public final class Budget {
+
+  private final AtomicBoolean cancelled = new AtomicBoolean(false);
+  // time limit in nanoseconds, 0 indicates no limit
+  private volatile long limit;
+  private volatile long deadline;
+  // the budget of the enclosing run, to which everything but start() is
+  // delegated, or null if this is the budget of a run. A nested budget with
+  // a limit also runs out at its own deadline.
+  private final Budget parent;
+
+  public Budget() {
+    this(null);
+  }
+
+  private Budget(Budget parent) {
+    this.parent = parent;
+  }
+
+  /**
+   * Return a budget for a generator run as a part of the generation that
+   * owns this budget. It is exhausted and cancelled together with this
+   * budget, and its start() does nothing, so the time limit is counted
+   * from the start of the enclosing run.
+   */
+  public Budget nested() {
+    return new Budget(parent != null ? parent : this);
+  }
+
+  /**
+   * Return a nested budget that also runs out once the given fraction of the
+   * remaining time of the enclosing run has passed, so that a part of the
+   * run is left when it is exhausted.
+   *
+   * @param fraction fraction of the remaining time, between 0 and 1
+   */
+  public Budget nested(double fraction) {
+    if (!(fraction >= 0 && fraction <= 1))
+      throw new IllegalArgumentException("fraction should be between 0 and 1: " + fraction);
+    Budget nested = nested();
+    Budget run = nested.parent;
+    if (run.limit > 0) {
+      long now = System.nanoTime();
+      nested.limit = 1;
+      nested.deadline = now + (long) (Math.max(0, run.deadline - now) * fraction);
+    }
+    return nested;
+  }
+
+  /**
+   * Set the time limit, which takes effect from the next start().
+   *
+   * @param time time limit, 0 indicates no limit
+   * @param unit unit of time
+   */
+  public void setTimeLimit(long time, TimeUnit unit) {
+    if (time < 0)
+      throw new IllegalArgumentException("time limit should not be negative: " + time);
+    if (parent != null)
+      parent.setTimeLimit(time, unit);
+    else
+      limit = unit.toNanos(time);
+  }
+
+  /**
+   * Start counting the time limit, unless this is a nested budget. A
+   * cancelled budget stays cancelled.
+   */
+  public void start() {
+    if (parent == null)
+      deadline = System.nanoTime() + limit;
+  }
+
+  /**
+   * Cancel the budget permanently, which can be called from any thread.
+   */
+  public void cancel() {
+    if (parent != null)
+      parent.cancel();
+    else
+      cancelled.set(true);
+  }
+
+  public boolean isCancelled() {
+    return parent != null ? parent.isCancelled() : cancelled.get();
+  }
+
+  /**
+   * Determine whether the budget is cancelled or out of time.
+   */
+  public boolean isExhausted() {
+    if (parent != null)
+      return parent.isExhausted() || (limit > 0 && System.nanoTime() - deadline >= 0);
+    return cancelled.get() || (limit > 0 && System.nanoTime() - deadline >= 0);
+  }
+
+}
@@ -5,7 +5,6 @@ package com.neo.generator;
 import com.neo.combinatorial.CTModel;
 
 import java.util.ArrayList;
-import java.util.Vector;
 
 /**
  * ConflictCounter is used to calculate the number of constraint violations
@@ -14,16 +13,11 @@ import java.util.Vector;
  */
 public class ConflictCounter {
 
-  private int[][] relation;
-  private Vector<Constraint> hardConstraint;
+  // the MFT, which is immutable and shared with the validity checker
+  private ForbiddenTuples hardConstraint;
 
   public ConflictCounter(CTModel model) {
-    relation = model.relation;
-    hardConstraint = new Vector<>();
-    ValidityChecker tmp = model.checker;
-    for (Constraint x : tmp.MFT) {
-      hardConstraint.add(new Constraint(x.disjunction));
-    }
+    hardConstraint = model.checker.MFT;
     //System.out.println("conflict counter size = " + hardConstraint.size());
   }
 
@@ -31,49 +25,28 @@ public class ConflictCounter {
     return hardConstraint.size();
   }
 
+  /**
+   * Return the number of constraints (MFT) that a test case violates.
+   *
+   * @param test a complete or partial test case
+   */
   public int violateConstraintNum(final int[] test) {
-    if (hardConstraint.size() == 0)
-      return 0;
-
-    // convert the test case to constraint's form
-    // for example: value = [2, 2, 2]
-    // test case = [0, 0, -1] will be converted to [1, 3, -1]
-    int[] TC = new int[test.length];
-    int baseNum = 0;
-    for (int i = 0; i < test.length; i++) {
-      if (test[i] != -1)
-        TC[i] = test[i] + baseNum + 1;
-      else
-        TC[i] = -1;
-      baseNum += relation[i].length;
-    }
+    return hardConstraint.count(test);
+  }
 
-    // calculate the number of constraints that TC contains
-    int violateCount = 0;
-    for (Constraint cons : hardConstraint) {
-      boolean matched = true;
-      int k = 0;
-      int j = 0;
-      while (j < cons.disjunction.length) {
-        while (k < TC.length && (TC[k] == -1 || Math.abs(cons.disjunction[j]) > TC[k])) {
-          k++;
-          if (k == TC.length)
-            matched = false;
-        }
-        if (!matched)
-          break;
-        if (Math.abs(cons.disjunction[j]) == TC[k]) {
-          k++;
-          j++;
-        } else {
-          matched = false;
-          break;
-        }
-      }
-      if (matched)
-        violateCount++;
-    }
-    return violateCount;
+  /**
+   * Return the change of the number of violated constraints when the column-th
+   * value of a test case is changed from oldValue to newValue. Only the constraints
+   * that involve column are considered, as the others are not affected. The value
+   * of test[column] itself is ignored.
+   *
+   * @param test     a complete or partial test case
+   * @param column   the changed column
+   * @param oldValue value of column before the change
+   * @param newValue value of column after the change
+   */
+  public int violationDelta(final int[] test, int column, int oldValue, int newValue) {
+    return hardConstraint.count(test, column, newValue) - hardConstraint.count(test, column, oldValue);
   }
 
   public int violateConstraintNum(ArrayList<int[]> A) {
@@ -0,0 +1,273 @@
+package com.neo.generator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable and compact representation of the minimal forbidden tuples (MFT).
+ *
+ * All tuples are stored in one contiguous array of literals, sorted by length,
+ * where the i-th tuple occupies [offset[i], offset[i + 1]). Each literal is also
+ * decoded into its parameter and value, and each parameter value (i.e. literal)
+ * is mapped to the tuples that mention it, so that a test case can be checked
+ * without converting it into literals. As nothing is modified after construction,
+ * an object can be shared by many threads without locking.
+ */
+public final class ForbiddenTuples {
+
+  // the i-th tuple forbids test[parameter[k]] == value[k] for all k in [offset[i], offset[i + 1])
+  private final int[] literal;
+  private final int[] parameter;
+  private final int[] value;
+  private final int[] offset;
+
+  // literal index: relation[p][v] is the literal of parameter p with value v
+  private final int[][] relation;
+  // the tuples that contain literal l are withLiteral[literalStart[l] .. literalStart[l + 1])
+  private final int[] literalStart;
+  private final int[] withLiteral;
+  // the tuples whose first (largest) literal is l are withFirst[firstStart[l] .. firstStart[l + 1])
+  private final int[] firstStart;
+  private final int[] withFirst;
+
+  // constrained[p] indicates whether parameter p is involved in any tuple
+  private final boolean[] constrained;
+  // the number of empty tuples, any of which forbids every test case
+  private final int empty;
+
+  /**
+   * Build the representation from a list of forbidden tuples, each of which
+   * is represented by a disjunction of negative literals.
+   *
+   * @param MFT      list of forbidden tuples
+   * @param relation the literal of each parameter value
+   */
+  public ForbiddenTuples(List<Constraint> MFT, int[][] relation) {
+    this.relation = relation;
+    int literals = 0;
+    for (int[] r : relation)
+      literals += r.length;
+
+    // decode each literal into a parameter and a value
+    int[] literalParameter = new int[literals + 1];
+    int[] literalValue = new int[literals + 1];
+    for (int p = 0; p < relation.length; p++) {
+      for (int v = 0; v < relation[p].length; v++) {
+        literalParameter[relation[p][v]] = p;
+        literalValue[relation[p][v]] = v;
+      }
+    }
+
+    // sort tuples by length
+    List<int[]> sorted = new ArrayList<>();
+    for (Constraint c : MFT)
+      sorted.add(c.disjunction);
+    sorted.sort(Comparator.comparingInt(x -> x.length));
+
+    offset = new int[sorted.size() + 1];
+    for (int i = 0; i < sorted.size(); i++)
+      offset[i + 1] = offset[i] + sorted.get(i).length;
+    literal = new int[offset[sorted.size()]];
+    parameter = new int[literal.length];
+    value = new int[literal.length];
+    constrained = new boolean[relation.length];
+
+    literalStart = new int[literals + 2];
+    firstStart = new int[literals + 2];
+    int emptyCount = 0;
+    for (int i = 0; i < sorted.size(); i++) {
+      if (offset[i + 1] == offset[i])
+        emptyCount++;
+      int first = 0;
+      for (int k = offset[i]; k < offset[i + 1]; k++) {
+        int l = Math.abs(sorted.get(i)[k - offset[i]]);
+        literal[k] = l;
+        parameter[k] = literalParameter[l];
+        value[k] = literalValue[l];
+        constrained[parameter[k]] = true;
+        literalStart[l + 1]++;
+        first = Math.max(first, l);
+      }
+      if (offset[i + 1] > offset[i])
+        firstStart[first + 1]++;
+    }
+
+    empty = emptyCount;
+
+    // fill the literal index
+    for (int l = 0; l <= literals; l++) {
+      literalStart[l + 1] += literalStart[l];
+      firstStart[l + 1] += firstStart[l];
+    }
+    withLiteral = new int[literalStart[literals + 1]];
+    withFirst = new int[firstStart[literals + 1]];
+    int[] fillLiteral = Arrays.copyOf(literalStart, literals + 1);
+    int[] fillFirst = Arrays.copyOf(firstStart, literals + 1);
+    for (int i = 0; i < sorted.size(); i++) {
+      int first = 0;
+      for (int k = offset[i]; k < offset[i + 1]; k++) {
+        withLiteral[fillLiteral[literal[k]]++] = i;
+        first = Math.max(first, literal[k]);
+      }
+      if (offset[i + 1] > offset[i])
+        withFirst[fillFirst[first]++] = i;
+    }
+  }
+
+  /**
+   * Return the number of forbidden tuples.
+   */
+  public int size() {
+    return offset.length - 1;
+  }
+
+  /**
+   * Return the number of literals of the i-th tuple.
+   */
+  public int length(int i) {
+    return offset[i + 1] - offset[i];
+  }
+
+  /**
+   * Return the i-th tuple as a disjunction of negative literals.
+   */
+  public int[] getDisjunction(int i) {
+    int[] disjunction = new int[length(i)];
+    for (int k = 0; k < disjunction.length; k++)
+      disjunction[k] = -literal[offset[i] + k];
+    return disjunction;
+  }
+
+  /**
+   * Determine whether a parameter is involved in any forbidden tuple.
+   *
+   * @param p index of parameter
+   */
+  public boolean isConstrained(int p) {
+    return p < constrained.length && constrained[p];
+  }
+
+  /**
+   * Determine whether a complete or partial test case contains none of the
+   * forbidden tuples. Each tuple is checked once, via its first literal.
+   *
+   * @param test a complete or partial test case, -1 indicates unfixed values
+   */
+  public boolean isValid(final int[] test) {
+    if (size() == 0)
+      return true;
+    if (empty > 0)
+      return false;
+    for (int p = 0; p < test.length; p++) {
+      if (test[p] == -1)
+        continue;
+      int l = relation[p][test[p]];
+      for (int j = firstStart[l]; j < firstStart[l + 1]; j++)
+        if (matches(withFirst[j], test))
+          return false;
+    }
+    return true;
+  }
+
+  /**
+   * Determine whether a test case, which is known to be valid before its column-th
+   * value is changed, is still valid. Only the forbidden tuples that mention the
+   * new value of column are checked.
+   *
+   * @param test   a complete or partial test case
+   * @param column the changed column
+   */
+  public boolean isValid(final int[] test, int column) {
+    if (size() == 0 || test[column] == -1)
+      return true;
+    if (empty > 0)
+      return false;
+    int l = relation[column][test[column]];
+    for (int j = literalStart[l]; j < literalStart[l + 1]; j++)
+      if (matches(withLiteral[j], test))
+        return false;
+    return true;
+  }
+
+  /**
+   * Return the number of forbidden tuples that are contained in a test case.
+   *
+   * @param test a complete or partial test case
+   */
+  public int count(final int[] test) {
+    if (size() == 0)
+      return 0;
+    int count = empty;
+    for (int p = 0; p < test.length; p++) {
+      if (test[p] == -1)
+        continue;
+      int l = relation[p][test[p]];
+      for (int j = firstStart[l]; j < firstStart[l + 1]; j++)
+        if (matches(withFirst[j], test))
+          count++;
+    }
+    return count;
+  }
+
+  /**
+   * Return the number of forbidden tuples that are contained in a test case and
+   * mention the current value of column.
+   *
+   * @param test   a complete or partial test case
+   * @param column index of parameter
+   */
+  public int count(final int[] test, int column) {
+    return count(test, column, test[column]);
+  }
+
+  /**
+   * Return the number of forbidden tuples that are contained in a test case and
+   * mention the given value of column, as if test[column] is assigned to value.
+   *
+   * @param test   a complete or partial test case
+   * @param column index of parameter
+   * @param value  value of column
+   */
+  public int count(final int[] test, int column, int value) {
+    if (size() == 0 || value == -1)
+      return 0;
+    int count = 0;
+    int l = relation[column][value];
+    for (int j = literalStart[l]; j < literalStart[l + 1]; j++)
+      if (matches(withLiteral[j], test, column, value))
+        count++;
+    return count;
+  }
+
+  /**
+   * Determine whether the i-th forbidden tuple is contained in a test case.
+   */
+  private boolean matches(int i, final int[] test) {
+    for (int k = offset[i]; k < offset[i + 1]; k++)
+      if (test[parameter[k]] != value[k])
+        return false;
+    return true;
+  }
+
+  /**
+   * Determine whether the i-th forbidden tuple is contained in a test case,
+   * where the value of column is replaced by v.
+   */
+  private boolean matches(int i, final int[] test, int column, int v) {
+    for (int k = offset[i]; k < offset[i + 1]; k++)
+      if ((parameter[k] == column ? v : test[parameter[k]]) != value[k])
+        return false;
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < size(); i++)
+      sb.append(Arrays.toString(getDisjunction(i))).append('\n');
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,55 @@
+package com.neo.generator;
+
+import com.neo.combinatorial.CTModel;
+import com.neo.combinatorial.TestSuite;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A covering array generator. The generated test cases of a model are
+ * appended to a given test suite.
+ */
+public interface Generator {
+
+  /**
+   * Generate a covering array of a model, which is initialized by the
+   * generator itself.
+   *
+   * @param model an object of CT model
+   * @param ts    the test suite to hold the covering array
+   */
+  void generation(CTModel model, TestSuite ts);
+
+  /**
+   * Set the seed of generation, so that runs with the same seed on the
+   * same model are reproducible.
+   */
+  void setSeed(long seed);
+
+  long getSeed();
+
+  void setProgressListener(ProgressListener listener);
+
+  /**
+   * Set the budget of generation, which replaces the current one.
+   */
+  void setBudget(Budget budget);
+
+  Budget getBudget();
+
+  /**
+   * Set the wall-clock time limit of each generation, 0 indicates no limit.
+   */
+  default void setTimeLimit(long time, TimeUnit unit) {
+    getBudget().setTimeLimit(time, unit);
+  }
+
+  /**
+   * Cancel the generation, which can be called from any thread. The
+   * cancellation also applies to later generations until a new budget is set.
+   */
+  default void cancel() {
+    getBudget().cancel();
+  }
+
+}
@@ -0,0 +1,291 @@
+package com.neo.generator;
+
+import com.neo.combinatorial.CTModel;
+import com.neo.combinatorial.TestCase;
+import com.neo.combinatorial.TestSuite;
+import com.neo.common.BArray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/**
+ * The in-parameter-order generator (IPOG), which is suited to models with
+ * hundreds of parameters.
+ *
+ * The covering array of the first t parameters is all their valid value
+ * combinations. Each following parameter p is then added in two steps, which
+ * cover the combinations whose last parameter is p (i.e. p together with t - 1
+ * of the previous parameters):
+ *   1) horizontal growth: each existing row takes the valid value of p that
+ *      covers the most uncovered combinations;
+ *   2) vertical growth: each remaining combination is covered by filling the
+ *      don't care values of an existing row, or by a new row.
+ *
+ * In the horizontal growth, the partial indexes of the combinations of each row
+ * (which do not depend on the value of p) and the valid values of p are computed
+ * in parallel across the rows, and the greedy choices are then made in order.
+ * Don't care values that are left at the end are filled by random valid values.
+ */
+public class IPOG implements Generator {
+
+  // the maximum number of partial indexes held at a time, which bounds the
+  // number of rows that are processed in parallel
+  private static final int BLOCK_SIZE = 1 << 22;
+
+  private SplittableRandom random;
+  private long seed;
+  private ProgressListener listener = ProgressListener.NONE;
+  private Budget budget = new Budget();
+
+  public IPOG() {
+    setSeed(ThreadLocalRandom.current().nextLong());
+  }
+
+  @Override
+  public void setSeed(long seed) {
+    this.seed = seed;
+    this.random = new SplittableRandom(seed);
+  }
+
+  @Override
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Set the progress listener, which receives a round after each parameter,
+   * where N is the current size of test suite and round is the number of
+   * parameters covered so far.
+   */
+  @Override
+  public void setProgressListener(ProgressListener listener) {
+    this.listener = listener == null ? ProgressListener.NONE : listener;
+  }
+
+  /**
+   * Set the budget of generation. When the budget is exhausted, the
+   * generation stops and returns an empty test suite, as the test cases
+   * so far do not form a covering array.
+   */
+  @Override
+  public void setBudget(Budget budget) {
+    this.budget = budget;
+  }
+
+  @Override
+  public Budget getBudget() {
+    return budget;
+  }
+
+  @Override
+  public void generation(CTModel model, TestSuite ts) {
+    if (model.parameter < model.t_way)
+      throw new IllegalArgumentException("the number of parameters is less than the strength");
+    budget.start();
+    random = new SplittableRandom(seed);
+    model.setSeed(seed);
+    model.initialization();
+    model.removeInvalidCombinations();
+
+    ArrayList<int[]> A = new ArrayList<>();
+    initial(model, A);
+    listener.onRound(A.size(), model.t_way, model.getCombUncovered());
+
+    for (int p = model.t_way; p < model.parameter; p++) {
+      if (budget.isExhausted())
+        return;
+      int[] ending = ending(model, p);
+      horizontal(model, A, p, ending);
+      vertical(model, A, p, ending);
+      listener.onRound(A.size(), p + 1, model.getCombUncovered());
+    }
+
+    fill(model, A);
+    listener.onSolution(SA.copy(A));
+    for (int[] tc : A)
+      ts.suite.add(new TestCase(tc));
+  }
+
+  /**
+   * Add all valid value combinations of the first t parameters, which is
+   * the first parameter combination of the model.
+   */
+  private void initial(CTModel model, ArrayList<int[]> A) {
+    int columns = model.getCombination().getColumnNumber(0);
+    for (int column = 0; column < columns; column++) {
+      // the invalid combinations have been marked as covered
+      if (model.covered(0, column, 1))
+        continue;
+      int[] test = new int[model.parameter];
+      Arrays.fill(test, -1);
+      int[] sch = model.schema(0, column);
+      System.arraycopy(sch, 0, test, 0, model.t_way);
+      A.add(test);
+    }
+  }
+
+  /**
+   * Return the parameter combinations whose last parameter is p.
+   */
+  private static int[] ending(CTModel model, int p) {
+    int t = model.t_way;
+    return Arrays.stream(model.pcOfParameter[p])
+        .filter(row -> model.allPc[row * t + t - 1] == p)
+        .toArray();
+  }
+
+  /**
+   * Extend each existing row by a value of p.
+   */
+  private void horizontal(CTModel model, ArrayList<int[]> A, int p, int[] ending) {
+    BArray combination = model.getCombination();
+    int block = Math.max(1, BLOCK_SIZE / Math.max(1, ending.length));
+    int[][] partial = new int[Math.min(block, A.size())][];
+    boolean[][] valid = new boolean[partial.length][];
+
+    for (int from = 0; from < A.size(); from += block) {
+      int start = from;
+      int to = Math.min(A.size(), from + block);
+
+      // the work that does not depend on the coverage, in parallel
+      IntStream.range(start, to).parallel().forEach(i -> {
+        int[] test = A.get(i).clone();
+        partial[i - start] = partialIndexes(model, test, ending);
+        valid[i - start] = new boolean[model.value[p]];
+        for (int v = 0; v < model.value[p]; v++) {
+          test[p] = v;
+          valid[i - start][v] = model.isValid(test, p);
+        }
+      });
+
+      // the greedy choices, in order
+      for (int i = start; i < to; i++) {
+        int[] index = partial[i - start];
+        int value = -1;
+        int gain = -1;
+        int ties = 0;
+        for (int v = 0; v < model.value[p]; v++) {
+          if (!valid[i - start][v])
+            continue;
+          int g = 0;
+          for (int j = 0; j < ending.length; j++)
+            if (index[j] >= 0 && !combination.getElement(ending[j], index[j] + v))
+              g++;
+          if (g > gain) {
+            value = v;
+            gain = g;
+            ties = 1;
+          } else if (g == gain && random.nextInt(++ties) == 0) {
+            value = v;
+          }
+        }
+        // if no value is valid, p is left as a don't care value
+        if (value == -1)
+          continue;
+        A.get(i)[p] = value;
+        for (int j = 0; j < ending.length; j++)
+          if (index[j] >= 0)
+            model.covered(ending[j], index[j] + value, 1);
+      }
+    }
+  }
+
+  /**
+   * Return the index of each combination in a row without the value of its
+   * last parameter, whose multiplier is 1, or -1 if the combination involves
+   * any other don't care value.
+   */
+  private static int[] partialIndexes(CTModel model, int[] test, int[] ending) {
+    int t = model.t_way;
+    int[] index = new int[ending.length];
+    for (int j = 0; j < ending.length; j++) {
+      int base = ending[j] * t;
+      int col = 0;
+      for (int k = base; k < base + t - 1 && col >= 0; k++) {
+        int v = test[model.allPc[k]];
+        col = v == -1 ? -1 : col + model.pcMultiplier[k] * v;
+      }
+      index[j] = col;
+    }
+    return index;
+  }
+
+  /**
+   * Cover each remaining combination whose last parameter is p.
+   */
+  private void vertical(CTModel model, ArrayList<int[]> A, int p, int[] ending) {
+    BArray combination = model.getCombination();
+    int t = model.t_way;
+    for (int row : ending) {
+      int[] position = model.getParameterCombination(row);
+      for (int column = 0; column < combination.getColumnNumber(row); column++) {
+        if (combination.getElement(row, column))
+          continue;
+        int[] sch = model.schema(row, column);
+        int[] test = compatible(model, A, position, sch);
+        if (test == null) {
+          test = new int[model.parameter];
+          Arrays.fill(test, -1);
+          A.add(test);
+        }
+        for (int k = 0; k < t; k++)
+          test[position[k]] = sch[k];
+        // the row may also cover other combinations whose last parameter is p
+        int[] index = partialIndexes(model, test, ending);
+        for (int j = 0; j < ending.length; j++)
+          if (index[j] >= 0)
+            model.covered(ending[j], index[j] + test[p], 1);
+      }
+    }
+  }
+
+  /**
+   * Return an existing row that can take a combination by filling its
+   * don't care values and is still valid, or null if there is no such row.
+   */
+  private static int[] compatible(CTModel model, ArrayList<int[]> A, int[] position, int[] sch) {
+    int[] backup = new int[position.length];
+    for (int[] test : A) {
+      boolean match = true;
+      for (int k = 0; k < position.length && match; k++)
+        match = test[position[k]] == -1 || test[position[k]] == sch[k];
+      if (!match)
+        continue;
+      for (int k = 0; k < position.length; k++) {
+        backup[k] = test[position[k]];
+        test[position[k]] = sch[k];
+      }
+      boolean valid = model.isValid(test);
+      for (int k = 0; k < position.length; k++)
+        test[position[k]] = backup[k];
+      if (valid)
+        return test;
+    }
+    return null;
+  }
+
+  /**
+   * Fill the don't care values by random valid values.
+   */
+  private void fill(CTModel model, ArrayList<int[]> A) {
+    for (int[] test : A) {
+      for (int p = 0; p < model.parameter; p++) {
+        if (test[p] != -1)
+          continue;
+        int offset = random.nextInt(model.value[p]);
+        boolean valid = false;
+        for (int i = 0; i < model.value[p] && !valid; i++) {
+          test[p] = (offset + i) % model.value[p];
+          valid = model.isValid(test, p);
+        }
+        // the row is valid, so that at least one value is expected
+        if (!valid)
+          throw new IllegalStateException("no valid value of parameter " + p + " in " + Arrays.toString(test));
+      }
+    }
+  }
+
+}
@@ -0,0 +1,242 @@
+package com.neo.generator;
+
+import com.neo.combinatorial.CTModel;
+import com.neo.combinatorial.TestSuite;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A portfolio version of SA. Each probe of the outer search runs a number of
+ * independent SA chains (each with its own random stream and coverage matrix)
+ * in parallel, and the first chain that finds a covering array of the probed
+ * size cancels the others.
+ *
+ * In the bracketed mode, the chains probe different sizes of the outer search
+ * at the same time instead. The search interval is narrowed as soon as any
+ * probe finishes, and probes that fall outside the interval are aborted.
+ */
+public class ParallelSA extends SA {
+
+  private int threads;
+  private boolean bracketed;
+
+  // independent search chains, one for each thread
+  private SA[] chains;
+  private ExecutorService executor;
+  // the prefix of the names of the chain threads
+  static final String THREAD_NAME = "parallel-sa-";
+  private static final AtomicInteger pools = new AtomicInteger();
+
+  public ParallelSA(boolean isTolerate) {
+    this(Runtime.getRuntime().availableProcessors(), isTolerate);
+  }
+
+  public ParallelSA(int threads, boolean isTolerate) {
+    this(threads, 0.2, 200000, isTolerate);
+  }
+
+  public ParallelSA(int threads, boolean isTolerate, boolean bracketed) {
+    this(threads, 0.2, 200000, isTolerate, bracketed);
+  }
+
+  public ParallelSA(int threads, double initialTemperature, int maxRound, boolean isTolerate) {
+    this(threads, initialTemperature, maxRound, isTolerate, false);
+  }
+
+  public ParallelSA(int threads, double initialTemperature, int maxRound, boolean isTolerate,
+                    boolean bracketed) {
+    super(initialTemperature, maxRound, isTolerate);
+    if (threads < 1)
+      throw new IllegalArgumentException("the number of threads should be at least 1");
+    this.threads = threads;
+    this.bracketed = bracketed;
+  }
+
+  /**
+   * Run the generation on a thread pool of its own, which is shut down and
+   * terminated before this method returns.
+   */
+  @Override
+  public void generation(CTModel model, TestSuite ts) {
+    String prefix = THREAD_NAME + pools.incrementAndGet() + "-";
+    AtomicInteger count = new AtomicInteger();
+    executor = Executors.newFixedThreadPool(threads, r -> new Thread(r, prefix + count.incrementAndGet()));
+    try {
+      super.generation(model, ts);
+    } finally {
+      executor.shutdownNow();
+      try {
+        // all chains have returned, so the idle threads exit at once
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      executor = null;
+      chains = null;
+    }
+  }
+
+  @Override
+  void prepare(CTModel model) {
+    chains = new SA[threads];
+    for (int i = 0; i < threads; i++) {
+      chains[i] = newChain();
+      chains[i].prepare(model);
+    }
+  }
+
+  /**
+   * The coverage matrix of this instance is not prepared, so that a chain
+   * records the test suite for all chains.
+   */
+  @Override
+  long record(CTModel model, ArrayList<int[]> A) {
+    return chains[0].record(model, A);
+  }
+
+  /**
+   * Run all chains on the same size N, and return the covering array of
+   * the first chain that succeeds.
+   */
+  @Override
+  protected ArrayList<int[]> search(CTModel model, int N) {
+    AtomicBoolean stop = new AtomicBoolean(false);
+    CompletionService<ArrayList<int[]>> service = new ExecutorCompletionService<>(executor);
+    for (SA chain : chains)
+      service.submit(() -> chain.innerSearch(model, N, stop));
+
+    // wait for all chains, as their coverage matrices are reused by the next probe
+    ArrayList<int[]> A = new ArrayList<>();
+    try {
+      for (int i = 0; i < chains.length; i++) {
+        ArrayList<int[]> A1 = service.take().get();
+        if (A1.size() != 0 && A.size() == 0) {
+          A = A1;
+          stop.set(true);
+        }
+      }
+    } catch (InterruptedException e) {
+      stop.set(true);
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      stop.set(true);
+      throw new RuntimeException(e.getCause());
+    }
+    return A;
+  }
+
+  /**
+   * The bracketed outer search, where each idle chain probes a different size
+   * in [lower, upper]. A successful probe of size N sets upper to N - 1, a
+   * failed probe of size N sets lower to N + 1, and the running probes that
+   * can no longer improve the bound are aborted.
+   */
+  @Override
+  protected ArrayList<int[]> outerSearch(CTModel model, int lower, int upper) {
+    if (!bracketed)
+      return super.outerSearch(model, lower, upper);
+
+    ArrayList<int[]> A = new ArrayList<>();
+    ArrayDeque<SA> idle = new ArrayDeque<>(Arrays.asList(chains));
+    HashMap<Integer, AtomicBoolean> running = new HashMap<>();
+    CompletionService<Probe> service = new ExecutorCompletionService<>(executor);
+
+    try {
+      while (true) {
+        // assign new sizes to idle chains
+        while (!idle.isEmpty() && !isExhausted()) {
+          int N = nextSize(lower, upper, running);
+          if (N == -1)
+            break;
+          SA chain = idle.poll();
+          AtomicBoolean stop = new AtomicBoolean(false);
+          running.put(N, stop);
+          listener.onProbe(N, lower, upper);
+          service.submit(() -> new Probe(chain, N, stop, chain.innerSearch(model, N, stop)));
+        }
+        if (running.isEmpty())
+          break;
+
+        Probe probe = service.take().get();
+        running.remove(probe.N);
+        idle.add(probe.chain);
+        if (probe.suite.size() != 0) {
+          // if a solution is found, update upper to N - 1
+          if (A.size() == 0 || probe.N < A.size()) {
+            A = probe.suite;
+            listener.onSolution(copy(A));
+          }
+          upper = Math.min(upper, probe.N - 1);
+        } else if (!probe.stop.get()) {
+          // else if the probe is not aborted, update lower to N + 1
+          lower = Math.max(lower, probe.N + 1);
+        }
+
+        // abort the probes that fall outside [lower, upper]
+        for (Map.Entry<Integer, AtomicBoolean> e : running.entrySet()) {
+          if (e.getKey() > upper || e.getKey() < lower)
+            e.getValue().set(true);
+        }
+      }
+    } catch (InterruptedException e) {
+      running.values().forEach(x -> x.set(true));
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      running.values().forEach(x -> x.set(true));
+      throw new RuntimeException(e.getCause());
+    }
+    return A;
+  }
+
+  /**
+   * Get the next size to be probed in [lower, upper], i.e. N, N - d, N - 2d, ...
+   * where N = (lower + 2 * upper) / 3 as in the sequential outer search and d
+   * divides the interval by the number of threads. Return -1 if every size in
+   * the interval is already being probed.
+   */
+  int nextSize(int lower, int upper, Map<Integer, AtomicBoolean> running) {
+    if (upper < lower)
+      return -1;
+    int N = (lower + 2 * upper) / 3;
+    int delta = Math.max(1, (upper - lower + 1) / (threads + 1));
+    for (int n = N; n >= lower; n -= delta) {
+      if (!running.containsKey(n))
+        return n;
+    }
+    for (int n = upper; n >= lower; n--) {
+      if (!running.containsKey(n))
+        return n;
+    }
+    return -1;
+  }
+
+  /**
+   * The outcome of probing size N by a chain.
+   */
+  private static class Probe {
+    final SA chain;
+    final int N;
+    final AtomicBoolean stop;
+    final ArrayList<int[]> suite;
+
+    Probe(SA chain, int N, AtomicBoolean stop, ArrayList<int[]> suite) {
+      this.chain = chain;
+      this.N = N;
+      this.stop = stop;
+      this.suite = suite;
+    }
+  }
+
+}
@@ -0,0 +1,36 @@
+package com.neo.generator;
+
+import java.util.ArrayList;
+
+/**
+ * Receive the progress of a generation run. Note that the parallel generators
+ * call a listener from several threads at the same time.
+ */
+public interface ProgressListener {
+
+  // the listener that ignores all progress
+  ProgressListener NONE = new ProgressListener() {
+  };
+
+  /**
+   * A search of size N is started, where [lower, upper] is the current
+   * interval of the outer search.
+   */
+  default void onProbe(int N, int lower, int upper) {
+  }
+
+  /**
+   * A search of size N has executed a number of rounds, and there are still
+   * a number of uncovered combinations.
+   */
+  default void onRound(int N, int round, long uncovered) {
+  }
+
+  /**
+   * A covering array is found, which is the best one so far. The listener
+   * receives a copy that it can keep.
+   */
+  default void onSolution(ArrayList<int[]> suite) {
+  }
+
+}
@@ -3,67 +3,229 @@ package com.neo.generator;
 
 
 import com.neo.combinatorial.*;
+import com.neo.common.BArray;
+import com.neo.common.CoverageCounter;
 
 import java.util.ArrayList;
-import java.util.Random;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
 
-public class SA {
+public class SA implements Generator {
 
   private boolean isTolerate;
 
   // calculate how many constraints a test case or a test suite violates
   private ConflictCounter conflictCounter;
 
-  private Random random;
+  // the random stream is re-created from seed at the start of each generation,
+  // so that runs with the same seed on the same model are reproducible
+  private SplittableRandom random;
+  private long seed;
   private double initialTemperature;
   private int maxRound;
 
-  // coverage matrix, indicating how many times a combination is covered
-  private int[][] cover;
+  // the number of rounds between two progress reports of the inner search
+  private static final int REPORT_ROUNDS = 10000;
+  // the inner search checks the time limit every (CHECK_MASK + 1) iterations
+  private static final int CHECK_MASK = 1023;
+  ProgressListener listener = ProgressListener.NONE;
+  // shared by all chains of a generator
+  Budget budget = new Budget();
+
+  // the fraction of the time limit that the greedy generator may take, so
+  // that the search has time left to find a covering array if it runs out
+  private static final double GREEDY_SHARE = 0.5;
+  // the greedy generator of the initial test suites, null for random ones
+  private Generator initialGenerator;
+  // a greedy covering array, which is truncated or padded to N in each search
+  ArrayList<int[]> initial;
+
+  // whether a search starts from the smallest covering array found so far
+  private boolean warmStart = true;
+  // the smallest covering array found so far, shared by all chains of a generator
+  AtomicReference<Snapshot> warm = new AtomicReference<>();
+
+  // coverage matrix, indicating how many times a combination is covered, where the
+  // counters of the i-th parameter combination start at coverOffset[i]
+  private CoverageCounter cover;
+  private int[] coverOffset;
+  private int[] coverInvalid;
   private long uncoverNum;
 
   public SA(boolean isTolerate) {
     this(0.2, 200000, isTolerate);
   }
 
+  public SA(boolean isTolerate, long seed) {
+    this(isTolerate);
+    setSeed(seed);
+  }
+
   public SA(double initialTemperature, int maxRound, boolean isTolerate) {
-    random = new Random();
+    setSeed(ThreadLocalRandom.current().nextLong());
     this.initialTemperature = initialTemperature;
     this.maxRound = maxRound;
     this.isTolerate = isTolerate;
   }
 
-  public void generation(CTModel model, TestSuite ts) {
-    // if use the Tolerate technique
-    if (isTolerate)
-      conflictCounter = new ConflictCounter(model);
+  /**
+   * Set the seed of generation. If no seed is set, a random one is used,
+   * which can be obtained by getSeed().
+   */
+  public void setSeed(long seed) {
+    this.seed = seed;
+    this.random = new SplittableRandom(seed);
+  }
 
-    model.initialization();
-    model.removeInvalidCombinations();
-    cover = new int[model.getCombination().getMatrix().length][];
+  public long getSeed() {
+    return seed;
+  }
+
+  public void setProgressListener(ProgressListener listener) {
+    this.listener = listener == null ? ProgressListener.NONE : listener;
+  }
+
+  /**
+   * Set a fast greedy generator (e.g. AETG or IPOG) whose covering array is
+   * used as the initial test suite of each search, truncated to its first N
+   * rows or padded by random rows. If it is null (by default), the initial
+   * test suites are random.
+   *
+   * Either way, a greedy covering array is generated first (by IPOG if no
+   * initial generator is set), which gives the upper bound of the search.
+   * With warm start (by default), each search starts from the smallest
+   * covering array so far, which is the greedy one at first, so the initial
+   * generator then only chooses the greedy algorithm. The greedy generator
+   * may take up to half of the time limit; if it does not finish, the search
+   * starts from random test suites.
+   */
+  public void setInitialGenerator(Generator initialGenerator) {
+    this.initialGenerator = initialGenerator;
+  }
+
+  public Generator getInitialGenerator() {
+    return initialGenerator;
+  }
+
+  /**
+   * Set whether each search starts from the smallest covering array found
+   * so far (by default), rather than the initial test suite. The rows that
+   * contribute the least unique coverage are dropped to reach the size of
+   * the search, and the coverage matrix of the covering array is reused.
+   */
+  public void setWarmStart(boolean warmStart) {
+    this.warmStart = warmStart;
+  }
+
+  public boolean isWarmStart() {
+    return warmStart;
+  }
+
+  /**
+   * Set the budget of generation, which replaces the current one. When the
+   * budget is exhausted, the search stops as soon as possible, and the best
+   * covering array found so far (or an empty test suite if there is none)
+   * is returned.
+   */
+  public void setBudget(Budget budget) {
+    this.budget = budget;
+  }
+
+  public Budget getBudget() {
+    return budget;
+  }
+
+  /**
+   * Set the wall-clock time limit of each generation, 0 indicates no limit.
+   */
+  public void setTimeLimit(long time, TimeUnit unit) {
+    budget.setTimeLimit(time, unit);
+  }
+
+  /**
+   * Cancel the generation, which can be called from any thread. The
+   * cancellation also applies to later generations until a new budget is set.
+   */
+  public void cancel() {
+    budget.cancel();
+  }
+
+  public boolean isCancelled() {
+    return budget.isCancelled();
+  }
+
+  /**
+   * Determine whether the generation should stop, i.e. it is cancelled
+   * or out of time.
+   */
+  boolean isExhausted() {
+    return budget.isExhausted();
+  }
+
+  public void generation(CTModel model, TestSuite ts) {
+    budget.start();
+    random = new SplittableRandom(seed);
+    warm.set(null);
+    // a fast greedy covering array (by IPOG unless an initial generator is
+    // set), which gives the upper bound, the first warm start, and also the
+    // initial test suites if an initial generator is set. It is empty if the
+    // greedy generator runs out of its share of the time.
+    ArrayList<int[]> greedy = greedy(model);
+    initial = initialGenerator != null ? greedy : null;
+    // the model is initialized by the greedy generator, whose invalid combinations
+    // are reused, unless they are detected lazily (e.g. by AETG)
+    if (model.getCombination() == null) {
+      model.setSeed(seed);
+      model.initialization();
+    }
+    if (model.getInvalidCombinations() == null)
+      model.removeInvalidCombinations();
+    prepare(model);
 
     // calculate lower and upper bound
     int[] upperAndLower = new int[2];
-    if (model.t_way == 3)
-      getUpperAndLower3Way(model, upperAndLower);
-    else if (model.t_way == 2)
-      getUpperAndLower2Way(model, upperAndLower);
+    getUpperAndLower(model, upperAndLower);
     int upper = upperAndLower[1];
     int lower = upperAndLower[0];
     //System.out.println("lower bound = " + lower + ", upper bound = " + upper);
 
-    // the outer search
-    ArrayList<int[]> A1 = outerSearch(model, lower, upper);
-
-    // if no solution is found, double upper bound and try again
-    if (A1.size() == 0) {
-      //while (A1.size() == 0) {
-      upper *= 2;
-      System.out.println("increase upper bound, new lower = " + lower + " new upper = " + upper);
+    ArrayList<int[]> A1;
+    // the rows of an initial generator may leave combinations uncovered,
+    // in which case they are only used as the initial test suites
+    if (greedy.size() > 0 && record(model, greedy) == 0) {
+      listener.onSolution(copy(greedy));
+      // the greedy covering array is optimal if it meets the lower bound of all models
+      if (greedy.size() <= coveringLowerBound(model)) {
+        for (int[] tc : greedy)
+          ts.suite.add(new TestCase(tc));
+        return;
+      }
+      // search below the greedy covering array, which is kept if nothing smaller is found
+      upper = greedy.size() - 1;
+      lower = Math.min(lower, upper);
+      A1 = outerSearch(model, lower, upper);
+      if (A1.size() == 0)
+        A1 = greedy;
+    } else {
+      // the outer search
       A1 = outerSearch(model, lower, upper);
+
+      // if no solution is found, double upper bound and try again
+      if (A1.size() == 0 && !isExhausted()) {
+        //while (A1.size() == 0) {
+        upper *= 2;
+        System.out.println("increase upper bound, new lower = " + lower + " new upper = " + upper);
+        A1 = outerSearch(model, lower, upper);
+      }
     }
     // while lower bound is met
-    while (A1.size() == lower) {
+    while (A1.size() == lower && lower > 0 && !isExhausted()) {
       upper = lower - 1;
       lower = lower > 5 ? lower - 5 : lower / 2;
       System.out.println("achieve lower bound, new lower = " + lower + " new upper = " + upper);
@@ -79,69 +241,117 @@ public class SA {
   }
 
   /**
-   * Calculate lower and upper bounds for covering strength 2.
+   * Run the initial generator, or IPOG if there is no initial generator,
+   * on a nested budget of this generator, so that its time counts towards
+   * the time limit of this generation, and it leaves a part of the time to
+   * the search. Return an empty list if the nested budget is exhausted.
    */
-  private void getUpperAndLower2Way(CTModel model, int[] res) {
-    int max = Integer.MIN_VALUE, second = Integer.MIN_VALUE;
-    int[] values = model.value;
-    if (values[0] > values[1]) {
-      max = values[0];
-      second = values[1];
-    } else {
-      max = values[1];
-      second = values[0];
-    }
-    // find the biggest and second biggest numbers
-    for (int i = 2; i < values.length; i++) {
-      if (values[i] > max) {
-        second = max;
-        max = values[i];
-      } else if (values[i] > second)
-        second = values[i];
+  private ArrayList<int[]> greedy(CTModel model) {
+    Generator gen = initialGenerator != null ? initialGenerator : new IPOG();
+    TestSuite greedy = new TestSuite();
+    gen.setSeed(seed);
+    gen.setBudget(budget.nested(GREEDY_SHARE));
+    gen.generation(model, greedy);
+    ArrayList<int[]> ret = new ArrayList<>();
+    for (TestCase tc : greedy.suite)
+      ret.add(tc.test);
+    return ret;
+  }
+
+  /**
+   * Prepare the search state (conflict counter and coverage matrix) for a
+   * model whose invalid combinations have been removed. The combinations may
+   * have been covered since then.
+   */
+  void prepare(CTModel model) {
+    // if use the Tolerate technique
+    if (isTolerate)
+      conflictCounter = new ConflictCounter(model);
+
+    // assign the row offsets of the flat coverage matrix, and record invalid combinations
+    BArray combination = model.getCombination();
+    int rows = combination.getRowNumber();
+    coverOffset = new int[rows + 1];
+    long size = 0;
+    for (int i = 0; i < rows; i++) {
+      coverOffset[i] = (int) size;
+      size += combination.getColumnNumber(i);
+      if (size > Integer.MAX_VALUE)
+        throw new IllegalStateException("too many combinations for the coverage matrix: " + size);
     }
-    res[0] = max * second;
-    res[1] = 5 * max * max;
+    coverOffset[rows] = (int) size;
+    long[] invalid = model.getInvalidCombinations();
+    coverInvalid = new int[invalid.length];
+    for (int k = 0; k < invalid.length; k++)
+      coverInvalid[k] = coverOffset[(int) (invalid[k] >>> 32)] + (int) invalid[k];
+    cover = null;
+  }
+
+  /**
+   * Return a new SA instance that has the same settings as this one, which can
+   * be used as an independent search chain. Its random stream is split from
+   * the stream of this instance.
+   */
+  SA newChain() {
+    SA chain = new SA(initialTemperature, maxRound, isTolerate);
+    chain.random = random.split();
+    chain.listener = listener;
+    chain.budget = budget;
+    chain.initial = initial;
+    chain.warmStart = warmStart;
+    chain.warm = warm;
+    return chain;
   }
 
   /**
-   * Calculate lower and upper bounds for covering strength 3.
+   * Calculate lower and upper bounds for any covering strength t, i.e. the
+   * product of the t largest numbers of values, and 5 * max^t.
    */
-  private void getUpperAndLower3Way(CTModel model, int[] res) {
-    int max = Integer.MIN_VALUE, second = Integer.MIN_VALUE, third = Integer.MIN_VALUE;
-    int[] values = model.value;
-
-    // find the biggest and second biggest and third biggest numbers
-    for (int i = 0; i < values.length; i++) {
-      if (values[i] > max) {
-        third = second;
-        second = max;
-        max = values[i];
-
-      } else if (values[i] > second) {
-        third = second;
-        second = values[i];
-      } else if (values[i] > third)
-        third = values[i];
+  private void getUpperAndLower(CTModel model, int[] res) {
+    int[] values = model.value.clone();
+    Arrays.sort(values);
+    int max = values[values.length - 1];
+    long lower = 1, upper = 5;
+    for (int i = 0; i < model.t_way && i < values.length; i++) {
+      lower = Math.min(lower * values[values.length - 1 - i], Integer.MAX_VALUE);
+      upper = Math.min(upper * max, Integer.MAX_VALUE);
     }
-    res[0] = max * second * third;
-    res[1] = 5 * max * max * max;
+    res[0] = (int) lower;
+    res[1] = (int) upper;
+  }
+
+  /**
+   * Return the largest number of valid value combinations of a parameter
+   * combination, each of which needs a distinct row. Unlike the lower bound
+   * above, this also holds for constrained models.
+   */
+  static long coveringLowerBound(CTModel model) {
+    BArray combination = model.getCombination();
+    long[] valid = new long[combination.getRowNumber()];
+    for (int i = 0; i < valid.length; i++)
+      valid[i] = combination.getColumnNumber(i);
+    for (long e : model.getInvalidCombinations())
+      valid[(int) (e >>> 32)]--;
+    return Arrays.stream(valid).max().orElse(0);
   }
 
   /**
    * The outer search of SA.
    */
-  private ArrayList<int[]> outerSearch(CTModel model, int lower, int upper) {
+  protected ArrayList<int[]> outerSearch(CTModel model, int lower, int upper) {
     ArrayList<int[]> A = new ArrayList<>();
     int N = (lower + 2 * upper) / 3;        // the initial test suite size
 
-    while (upper >= lower) {
+    while (upper >= lower && !isExhausted()) {
       // System.out.println("N = " + N);
-      ArrayList<int[]> A1 = innerSearch(model, N);
+      listener.onProbe(N, lower, upper);
+      ArrayList<int[]> A1 = search(model, N);
       //if (model.fitnessValue(A1) == 0) {
       if (A1.size() != 0) {
         // if a solution is found, update upper to N - 1
         A = A1;
         upper = N - 1;
+        listener.onSolution(copy(A));
       } else {
         // else update lower to N + 1
         lower = N + 1;
@@ -151,101 +361,214 @@ public class SA {
     return A;
   }
 
+  /**
+   * Search a covering array of size N, return an empty list if no such
+   * covering array is found.
+   */
+  protected ArrayList<int[]> search(CTModel model, int N) {
+    return innerSearch(model, N, null);
+  }
+
   /**
    * The inner search of SA.
+   *
+   * @param stop if not null, the search is abandoned as soon as it is set
    */
-  private ArrayList<int[]> innerSearch(CTModel model, int N) {
-    initCover(model);
+  ArrayList<int[]> innerSearch(CTModel model, int N, AtomicBoolean stop) {
+    ArrayList<int[]> A;
+    Snapshot snapshot = warmStart ? warm.get() : null;
+    if (snapshot != null && snapshot.suite.size() > N) {
+      // start from the smallest covering array so far
+      A = shrink(model, snapshot, N);
+    } else {
+      initCover(N);
+
+      // get an initial test suite, i.e. the first N rows of the greedy
+      // covering array if there is one, padded by random rows
+      A = new ArrayList<>();
+      if (initial != null) {
+        for (int i = 0; i < N && i < initial.size(); i++)
+          A.add(initial.get(i).clone());
+      }
+      while (A.size() < N) {
+        int[] test = sample(model);
+        while (!isTolerate && !model.isValid(test))
+          test = sample(model);
+        A.add(test);
+      }
 
-    // get a random initial test suite
-    ArrayList<int[]> A = new ArrayList<>();
-    for (int i = 0; i < N; i++) {
-      int[] test = sample(model);
-      while (!isTolerate && !model.isValid(test))
-        test = sample(model);
-      A.add(test);
+      // initialize coverage matrix
+      updateTestSuiteCoverage(model, A);
     }
-
-    // initialize coverage matrix
-    updateTestSuiteCoverage(model, A);
     int violateCons = isTolerate ? conflictCounter.violateConstraintNum(A) : 0;
 
     double temperature = initialTemperature;
     int round = 0;
+    int iteration = 0;
     while (round < maxRound) {
+      if (stop != null && stop.get())
+        break;
+      if ((++iteration & CHECK_MASK) == 0 && isExhausted())
+        break;
+
       // get a random position and a random value in testsuite
       int row = random.nextInt(N);
       int column = random.nextInt(model.parameter);
       int symbol = random.nextInt(model.value[column]);
-      // the modified row
-      int[] tmpTC = A.get(row).clone();
-      tmpTC[column] = symbol;
+      // the modified row, which is changed in place
+      int[] test = A.get(row);
+      int previous = test[column];
 
-      // if there is no change, or the change violates constraint and the constraint handling
-      // method is not Tolerate, discard this move
-      if (symbol == A.get(row)[column] || (!isTolerate && !model.isValid(tmpTC)))
+      // if there is no change, discard this move
+      if (symbol == previous)
         continue;
 
-      // A1 is the new test suite, which changes a value in test suite A
-      ArrayList<int[]> A1 = new ArrayList<>();
-      A.forEach(x -> A1.add(x.clone()));
-      A1.get(row)[column] = symbol;
-
-      // clone the coverage matrix
-      // in case A1 is worse then A, roll back coverage matrix
-      int[][] coverClone = new int[cover.length][];
-      for (int i = 0; i < cover.length; i++) {
-        coverClone[i] = cover[i].clone();
+      // if the change violates constraint and the constraint handling method
+      // is not Tolerate, roll back and discard this move (as all rows are valid,
+      // only the constraints that involve the new value need to be checked)
+      test[column] = symbol;
+      if (!isTolerate && !model.isValid(test, column)) {
+        test[column] = previous;
+        continue;
       }
 
-      // number of coverage loss if we drop the row-th test case of A
-      long coverNumA = updateTestCaseCoverage(model, A.get(row), 0);
-      // number of coverage gain if we add the row-th test case of A1 (after dropping the row-th test case of A)
-      long coverNumA1 = updateTestCaseCoverage(model, A1.get(row), 1);
-      int violateConsNumA1 = 0, violateConsNumA = 0;
+      // only the combinations that involve column can be affected by this move
+      // number of coverage loss if we drop the old value of the row-th test case
+      test[column] = previous;
+      long coverNumA = updateTestCaseCoverage(model, test, column, 0);
+      // number of coverage gain if we add the new value of the row-th test case
+      test[column] = symbol;
+      long coverNumA1 = updateTestCaseCoverage(model, test, column, 1);
+      // change of the number of violated constraints that involve column
+      int violateConsDelta = isTolerate ? conflictCounter.violationDelta(test, column, previous, symbol) : 0;
+
       double delta;
       if (!isTolerate)
         delta = coverNumA1 - coverNumA;
-      else {
-        // how many constraints does the row-th test case of A violates?
-        violateConsNumA = conflictCounter.violateConstraintNum(A.get(row));
-        // how many constraints does the row-th test case of A1 violates?
-        violateConsNumA1 = conflictCounter.violateConstraintNum(A1.get(row));
-        delta = coverNumA1 - coverNumA - 4.0 * (violateConsNumA1 - violateConsNumA);
-      }
+      else
+        delta = coverNumA1 - coverNumA - 4.0 * violateConsDelta;
 
-      // if A1 is better then A
-      if (delta >= 0) {
-        A = A1;
+      // if the move is better, or with a possibility pro, accept the move
+      if (delta >= 0 || random.nextDouble() < Math.pow(Math.E, delta / temperature)) {
         uncoverNum = uncoverNum - (coverNumA1 - coverNumA);
-        violateCons = violateCons + (violateConsNumA1 - violateConsNumA);
+        violateCons = violateCons + violateConsDelta;
       } else {
-        // with a possibility pro, accept solution A1
-        double pro = Math.pow(Math.E, delta / temperature);
-        if (random.nextDouble() < pro) {
-          A = A1;
-          uncoverNum = uncoverNum - (coverNumA1 - coverNumA);
-          violateCons = violateCons + (violateConsNumA1 - violateConsNumA);
-        } else {
-          // if we drop this move, roll back coverage matrix
-          cover = coverClone;
-        }
+        // if we drop this move, undo it and roll back coverage matrix
+        updateTestCaseCoverage(model, test, column, 0);
+        test[column] = previous;
+        updateTestCaseCoverage(model, test, column, 1);
       }
 
       // if get a CA
       if (uncoverNum == 0 && violateCons == 0) {
         //System.out.println("Get a CA at round " + round);
+        if (warmStart)
+          keep(model, A);
         return A;
       }
 
       round++;
       temperature = cool(temperature, round);
+      if (round % REPORT_ROUNDS == 0)
+        listener.onRound(N, round, uncoverNum);
     }
 
     //System.out.println("Inner end. Size = " + A.size() + " Uncover = " + uncoverNum + " VoilateCon = " + violateCons);
     return new ArrayList<>();
   }
 
+  /**
+   * Record a test suite that is found elsewhere, so that the searches can
+   * start from it if warm start is enabled, where the coverage matrix is
+   * built from scratch. Return the number of uncovered combinations.
+   */
+  long record(CTModel model, ArrayList<int[]> A) {
+    initCover(A.size());
+    updateTestSuiteCoverage(model, A);
+    if (warmStart)
+      keep(model, A);
+    return uncoverNum;
+  }
+
+  /**
+   * Record a test suite together with its coverage matrix and the number of
+   * uncovered combinations, unless a test suite that is as good has been
+   * recorded, i.e. a covering array, or a smaller one of the same kind.
+   */
+  private void keep(CTModel model, ArrayList<int[]> A) {
+    Snapshot current = warm.get();
+    if (!better(A.size(), uncoverNum, current))
+      return;
+
+    // the number of combinations that are covered by each row only
+    int[] unique = new int[A.size()];
+    for (int r = 0; r < A.size(); r++) {
+      int[] test = A.get(r);
+      for (int i = 0; i < coverOffset.length - 1; i++) {
+        int base = i * model.t_way;
+        int col = 0;
+        for (int j = base; j < base + model.t_way; j++)
+          col += model.pcMultiplier[j] * test[model.allPc[j]];
+        if (cover.get(coverOffset[i] + col) == 1)
+          unique[r]++;
+      }
+    }
+
+    Snapshot snapshot = new Snapshot(copy(A), cover.copy(), unique, uncoverNum);
+    while (!warm.compareAndSet(current, snapshot)) {
+      current = warm.get();
+      if (!better(A.size(), uncoverNum, current))
+        return;
+    }
+  }
+
+  private static boolean better(int size, long uncovered, Snapshot current) {
+    if (current == null)
+      return true;
+    if ((uncovered == 0) != (current.uncovered == 0))
+      return uncovered == 0;
+    return size < current.suite.size();
+  }
+
+  /**
+   * Return the rows of a recorded covering array without the ones that
+   * contribute the least unique coverage, so that N rows are left. The
+   * coverage matrix of the covering array is reused if its width fits N,
+   * where only the dropped rows are removed from it.
+   */
+  private ArrayList<int[]> shrink(CTModel model, Snapshot snapshot, int N) {
+    int size = snapshot.suite.size();
+    int[] order = IntStream.range(0, size).boxed()
+        .sorted(Comparator.comparingInt(r -> snapshot.unique[r]))
+        .mapToInt(r -> r)
+        .toArray();
+    boolean[] dropped = new boolean[size];
+    for (int i = 0; i < size - N; i++)
+      dropped[order[i]] = true;
+
+    ArrayList<int[]> A = new ArrayList<>(N);
+    for (int r = 0; r < size; r++) {
+      if (!dropped[r])
+        A.add(snapshot.suite.get(r).clone());
+    }
+
+    if (snapshot.cover.bound() == CoverageCounter.bound(N)) {
+      if (cover == null || cover.bound() != snapshot.cover.bound())
+        cover = snapshot.cover.copy();
+      else
+        cover.assign(snapshot.cover);
+      uncoverNum = snapshot.uncovered;
+      for (int r = 0; r < size; r++) {
+        if (dropped[r])
+          uncoverNum += updateTestCaseCoverage(model, snapshot.suite.get(r), 0);
+      }
+    } else {
+      initCover(N);
+      updateTestSuiteCoverage(model, A);
+    }
+    return A;
+  }
+
   /**
    * update coverage for a test suite
    */
@@ -263,47 +586,75 @@ public class SA {
    *             flag = 1 indicates the addition of a test case (as if it is added)
    * @return the number of changes on the combination coverage
    */
-  private int updateTestCaseCoverage(CTModel model, int[] test, int flag) {
+  int updateTestCaseCoverage(CTModel model, int[] test, int flag) {
     int change = 0;
-    int i = 0;
-    for (int[] tmp : model.allPc) {
-      int col = 0;
-      int sd = 1;
-      for (int j = model.t_way - 1; j >= 0; j--) {
-        if (test[tmp[j]] != -1)
-          col += sd * test[tmp[j]];
-        sd *= model.value[tmp[j]];
-      }
-      if (cover[i][col] != -1) {
-        if (flag == 0) {
-          cover[i][col]--;
-          if (cover[i][col] == 0)   // the combination is now uncovered in the test suite
-            change++;
-        } else if (flag == 1) {
-          if (cover[i][col] == 0)  // the combination is now covered in the test suite
-            change++;
-          cover[i][col]++;
-        } else {
-          System.err.println("Flag error in SA.java!");
-        }
-      }
-      i += 1 ;
-    }
+    for (int i = 0; i < coverOffset.length - 1; i++)
+      change += updateCombinationCoverage(model, test, i, flag);
+    return change;
+  }
+
+  /**
+   * Update coverage for the combinations that involve a given column only,
+   * which are obtained from the per-parameter index of the model.
+   *
+   * @param model
+   * @param test
+   * @param column the changed column
+   * @param flag flag = 0 indicates the removal of the column value (as if it is removed)
+   *             flag = 1 indicates the addition of the column value (as if it is added)
+   * @return the number of changes on the combination coverage
+   */
+  int updateTestCaseCoverage(CTModel model, int[] test, int column, int flag) {
+    int change = 0;
+    for (int i : model.pcOfParameter[column])
+      change += updateCombinationCoverage(model, test, i, flag);
     return change;
   }
 
   /**
-   * initialise cover[][]: -1 for invalid combinations, 0 for valid combinations
+   * Update coverage of the i-th parameter combination.
+   *
+   * @return 1 if the combination becomes uncovered (flag = 0) or covered (flag = 1), otherwise 0
    */
-  private void initCover(CTModel model) {
-    for (int i = 0; i < model.getCombination().getMatrix().length; i++) {
-      cover[i] = new int[model.getCombination().getMatrix()[i].length];
-      for (int j = 0; j < model.getCombination().getMatrix()[i].length; j++)
-        if (model.getCombination().getMatrix()[i][j])
-          cover[i][j] = -1;
-        else
-          cover[i][j] = 0;
+  private int updateCombinationCoverage(CTModel model, int[] test, int i, int flag) {
+    int base = i * model.t_way;
+    int col = 0;
+    for (int j = base; j < base + model.t_way; j++)
+      col += model.pcMultiplier[j] * test[model.allPc[j]];
+    int index = coverOffset[i] + col;
+    if (cover.get(index) == -1)
+      return 0;
+    if (flag == 0) {
+      if (cover.decrease(index) == 0)   // the combination is now uncovered in the test suite
+        return 1;
+    } else if (flag == 1) {
+      if (cover.increase(index) == 1)  // the combination is now covered in the test suite
+        return 1;
+    } else {
+      System.err.println("Flag error in SA.java!");
     }
+    return 0;
+  }
+
+  /**
+   * initialise cover: -1 for invalid combinations, 0 for valid combinations.
+   * The counters are reset in place unless a different width is required by N.
+   */
+  void initCover(int N) {
+    if (cover == null || cover.bound() != CoverageCounter.bound(N))
+      cover = CoverageCounter.create(coverOffset[coverOffset.length - 1], coverInvalid, N);
+    else
+      cover.reset();
+  }
+
+  /**
+   * Return a deep copy of a test suite.
+   */
+  static ArrayList<int[]> copy(ArrayList<int[]> suite) {
+    ArrayList<int[]> ret = new ArrayList<>(suite.size());
+    for (int[] test : suite)
+      ret.add(test.clone());
+    return ret;
   }
 
   /**
@@ -325,4 +676,24 @@ public class SA {
     return temperature * 0.999999;
   }
 
-}
\ No newline at end of file
+  /**
+   * A covering array with its coverage matrix, the unique coverage of each
+   * row and the number of uncovered combinations, which is 0 unless the
+   * array is recorded from an incomplete greedy run. It is not modified
+   * once recorded.
+   */
+  static class Snapshot {
+    final ArrayList<int[]> suite;
+    final CoverageCounter cover;
+    final int[] unique;
+    final long uncovered;
+
+    Snapshot(ArrayList<int[]> suite, CoverageCounter cover, int[] unique, long uncovered) {
+      this.suite = suite;
+      this.cover = cover;
+      this.unique = unique;
+      this.uncovered = uncovered;
+    }
+  }
+
+}
@@ -0,0 +1,158 @@
+package com.neo.generator;
+
+import com.neo.combinatorial.CTModel;
+import org.sat4j.core.VecInt;
+import org.sat4j.minisat.SolverFactory;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.TimeoutException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Use the sat4j solver as the validity checker. Each parameter value is mapped
+ * into a variable (see Constraint), each parameter takes exactly one value, and
+ * each constraint is added as a clause. A complete or partial test case is then
+ * checked by solving under the assumption of its fixed values.
+ *
+ * As a solver is not thread-safe, each thread builds its own solver with an LRU
+ * cache of recent answers in front of it, so that the parallel callers (e.g. the
+ * removal of invalid combinations, IPOG and ParallelSA) do not share a lock.
+ *
+ * No MFT is derived, so that huge constraint sets do not stall the startup. The
+ * MFT of this checker only contains the original constraints, which are enough
+ * to count the constraint violations of complete test cases.
+ */
+public class SATChecker extends ValidityChecker {
+
+  private static final int DEFAULT_CACHE_SIZE = 1 << 16;
+
+  private final int cacheSize;
+  private int[][] relation;
+  private ArrayList<int[]> constraint;
+  private boolean unsatisfiable;
+
+  // the solver of each thread, or null if there is no constraint
+  private ThreadLocal<Solver> solvers;
+
+  public SATChecker() {
+    this(DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * @param cacheSize the number of recent answers cached by each thread
+   */
+  public SATChecker(int cacheSize) {
+    this.cacheSize = cacheSize;
+  }
+
+  /**
+   * Build the solver of a given model.
+   * @param model an object of CT model
+   */
+  @Override
+  public void init(CTModel model) {
+    if (model.constraint == null)
+      return;
+
+    relation = model.relation;
+    constraint = model.constraint;
+    // the solver of this thread also determines whether the model is satisfiable at all
+    Solver solver = new Solver();
+    unsatisfiable = solver.unsatisfiable;
+    solvers = ThreadLocal.withInitial(Solver::new);
+    solvers.set(solver);
+
+    ArrayList<Constraint> list = new ArrayList<>();
+    for (int[] c : model.constraint)
+      list.add(new Constraint(c));
+    MFT = new ForbiddenTuples(list, relation);
+  }
+
+  /**
+   * Determine whether a given complete or partial test case is
+   * constraints satisfiable. Any free parameters are assigned
+   * to value -1.
+   *
+   * @param test a complete or partial test case
+   */
+  @Override
+  public boolean isValid(final int[] test) {
+    if (solvers == null)
+      return true;
+    if (unsatisfiable)
+      return false;
+    return solvers.get().isValid(test);
+  }
+
+  /**
+   * The solver does not benefit from the changed column, so the whole
+   * test case is checked.
+   */
+  @Override
+  public boolean isValid(final int[] test, int column) {
+    return isValid(test);
+  }
+
+  /**
+   * A solver of the model and its cache, which are used by a single thread.
+   */
+  private final class Solver {
+    private final ISolver solver;
+    private boolean unsatisfiable;
+    // recent answers, keyed by test case
+    private final LinkedHashMap<Key, Boolean> cache;
+
+    Solver() {
+      int literals = 0;
+      for (int[] r : relation)
+        literals += r.length;
+
+      solver = SolverFactory.newDefault();
+      solver.newVar(literals);
+      try {
+        // each parameter takes exactly one value
+        for (int[] r : relation) {
+          solver.addClause(new VecInt(r));
+          solver.addAtMost(new VecInt(r), 1);
+        }
+        // each constraint is a disjunction of negative literals
+        for (int[] c : constraint)
+          solver.addClause(new VecInt(c));
+      } catch (ContradictionException e) {
+        unsatisfiable = true;
+      }
+
+      cache = new LinkedHashMap<Key, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Boolean> eldest) {
+          return size() > cacheSize;
+        }
+      };
+    }
+
+    boolean isValid(final int[] test) {
+      // the test case is only cloned when its answer is cached
+      Boolean answer = cache.get(new Key(test));
+      if (answer != null)
+        return answer;
+
+      VecInt assumption = new VecInt(test.length);
+      for (int i = 0; i < test.length; i++) {
+        if (test[i] != -1)
+          assumption.push(relation[i][test[i]]);
+      }
+      try {
+        answer = solver.isSatisfiable(assumption);
+      } catch (TimeoutException e) {
+        throw new IllegalStateException("timeout when checking " + Arrays.toString(test), e);
+      }
+      cache.put(new Key(test.clone()), answer);
+      return answer;
+    }
+  }
+
+}
@@ -5,9 +5,10 @@ package com.neo.generator;
 import com.neo.combinatorial.CTModel;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Vector;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 
 /**
  * Use the minimum forbidden tuple (MFT) as the validity checker. Given a test model,
@@ -16,14 +17,70 @@ import java.util.Vector;
 public class ValidityChecker {
 
   private int[][] relation;
-  public Vector<Constraint> MFT;
+
+  // the parameter of each literal
+  private int[] literalParameter;
+
+  // the MFT, which is immutable once calculated
+  public ForbiddenTuples MFT;
+
+  // the estimated cost above which the SAT-based checker is used
+  private static final double SAT_THRESHOLD = 1e4;
 
   public ValidityChecker() {
-    MFT = new Vector<>();
+    MFT = new ForbiddenTuples(new ArrayList<>(), new int[0][]);
+  }
+
+  /**
+   * Select a validity checker for a given model by the estimated cost of MFT
+   * derivation: the MFT-based checker is used for small constraint sets, and
+   * the SAT-based checker is used otherwise. The returned checker is not
+   * initialized yet.
+   *
+   * @param model an object of CT model
+   */
+  public static ValidityChecker select(CTModel model) {
+    if (estimateCost(model) > SAT_THRESHOLD)
+      return new SATChecker();
+    return new ValidityChecker();
+  }
+
+  /**
+   * Estimate the cost of MFT derivation. Each implicit parameter contributes the
+   * number of Cartesian products of its first round, i.e. the product of the
+   * numbers of constraints that involve each of its values, and the sum is then
+   * weighted by the number of constraints, as every new tuple may combine again.
+   */
+  public static double estimateCost(CTModel model) {
+    if (model.constraint == null)
+      return 0;
+    int literals = 0;
+    for (int[] r : model.relation)
+      literals += r.length;
+    int[] count = new int[literals + 1];
+    for (int[] c : model.constraint)
+      for (int l : c)
+        count[Math.abs(l)]++;
+
+    double cost = 0;
+    for (int[] r : model.relation) {
+      double product = 1;
+      for (int l : r)
+        product *= count[l];
+      cost += product;
+    }
+    return cost * model.constraint.size();
   }
 
   /**
    * Calculate minimum forbidden tuple.
+   *
+   * Each forbidden tuple is kept in a canonical form, i.e. a sorted array of
+   * positive literals. Duplicates are detected by hashing the canonical form,
+   * and subsumption is checked via a trie of the tuples. A partial Cartesian
+   * product is pruned as soon as it contains a known forbidden tuple, since
+   * any tuple derived from it would not be minimal.
+   *
    * @param model an object of CT model
    */
   public void init(CTModel model) {
@@ -31,278 +88,319 @@ public class ValidityChecker {
       return;
 
     relation = model.relation;
-    Vector<Constraint> originalConstraint = new Vector<>();
+    int literals = 0;
+    for (int[] r : relation)
+      literals += r.length;
+    literalParameter = new int[literals + 1];
+    for (int p = 0; p < relation.length; p++)
+      for (int l : relation[p])
+        literalParameter[l] = p;
+
+    // minimise the original constraints
+    TupleSet set = new TupleSet(literals);
     for (int[] x : model.constraint) {
-      int[] y = sort(x);
-      originalConstraint.add(new Constraint(y));
+      int[] c = canonical(x);
+      if (c != null && !set.isSubsumed(c))
+        set.add(c);
     }
-    minimise(originalConstraint);
 
     // calculate all implicit parameters
     // all values of an implicit parameter are involved in constraints
-    Vector<Integer> imParameter = new Vector<>();
+    boolean[] isImParameter = new boolean[relation.length];
+    ArrayList<Integer> imParameter = new ArrayList<>();
     for (int i = 0; i < relation.length; i++) {
-      boolean isImParameter = true;
-      for (int j = 0; j < relation[i].length; j++) {
-        boolean getMatchCons = false;
-        for (Constraint cons : originalConstraint) {
-          for (int k = 0; k < cons.disjunction.length; k++)
-            if (relation[i][j] == Math.abs(cons.disjunction[k])) {
-              getMatchCons = true;
-              break;
-            }
-          if (getMatchCons)
-            break;
-        }
-        if (!getMatchCons) {
-          isImParameter = false;
+      isImParameter[i] = true;
+      for (int l : relation[i]) {
+        if (set.count(l) == 0) {
+          isImParameter[i] = false;
           break;
         }
       }
-      if (isImParameter)
+      if (isImParameter[i])
         imParameter.add(i);
     }
 
-    Vector<Integer> imParameter1 = new Vector<>(imParameter);
-    Vector<Constraint> newConstraint = new Vector<>();
-
     // while there is an implicit parameter
     while (imParameter.size() != 0) {
-      Vector<Integer> tempParameter = new Vector<>();
-      newConstraint.clear();
+      ArrayList<int[]> newConstraint = new ArrayList<>();
 
       // for every implicit parameter, calculate the valid Cartesian product of all tuples
-      for (Integer ip : imParameter) {
+      for (int ip : imParameter) {
+        ArrayList<int[]> cartesian = new ArrayList<>();
+        cartesian.add(new int[0]);
 
-        Vector<Constraint> cartesian = new Vector<>();
         // for each value of an implicit parameter
-        for (int ii = 0; ii < relation[ip].length; ii++) {
-
-          // get all constraints that contain this value (this value is not included in tmpCons)
-          Vector<Constraint> tmpCons = new Vector<>();
-          for (Constraint cons : originalConstraint) {
-            for (int k = 0; k < cons.disjunction.length; k++)
-              // get a matched constraint
-              if (Math.abs(cons.disjunction[k]) == relation[ip][ii]) {
-                int[] tmpArray = new int[cons.disjunction.length - 1];
-                int tmpI = 0, tmp1 = 0;
-                while (tmpI < cons.disjunction.length) {
-                  if (tmpI != k) {
-                    tmpArray[tmp1] = cons.disjunction[tmpI];
-                    tmp1++;
-                  }
-                  tmpI++;
-                }
-                tmpCons.add(new Constraint(tmpArray));
-                break;
-              }
-          }
-
-          // if this is the first value of the implicit parameter
-          if (ii == 0) {
-            cartesian.addAll(tmpCons);
+        for (int l : relation[ip]) {
+          // get all tuples that contain this value (this value is removed from them)
+          ArrayList<int[]> tmpCons = set.without(l);
+
+          // calculate Cartesian product of tuples in current cartesian set and tmpCons,
+          // only the minimal ones are kept as the others cannot derive minimal tuples
+          HashSet<Key> seen = new HashSet<>();
+          TupleSet next = new TupleSet(literals);
+          for (int[] cons1 : cartesian) {
+            for (int[] cons2 : tmpCons) {
+              int[] merged = merge(cons1, cons2);
+              // drop invalid tuples, duplicated tuples, and the tuples that contain
+              // a known forbidden tuple or another product (early pruning)
+              if (merged != null && seen.add(new Key(merged)) && !set.isSubsumed(merged)
+                  && !next.isSubsumed(merged))
+                next.add(merged);
+            }
           }
-          // calculate Cartesian product of tuples in current cartesian set and the obtained tmpCons set
-          else {
-            Vector<Constraint> tmp = new Vector<>(cartesian);
-            cartesian.clear();
-
-            for (Constraint cons1 : tmp)
-              for (Constraint cons2 : tmpCons) {
-                int x = 0, y = 0, z = 0;
-                // combine the two tuples into a new tuple mergeCons
-                int[] mergeCons = new int[cons1.disjunction.length + cons2.disjunction.length];
-                while (x < cons1.disjunction.length || y < cons2.disjunction.length) {
-                  if (x >= cons1.disjunction.length) {
-                    mergeCons[z] = cons2.disjunction[y];
-                    y++;
-                  } else if (y >= cons2.disjunction.length) {
-                    mergeCons[z] = cons1.disjunction[x];
-                    x++;
-                  } else if (cons1.disjunction[x] > cons2.disjunction[y]) {
-                    mergeCons[z] = cons1.disjunction[x];
-                    x++;
-                  } else {
-                    mergeCons[z] = cons2.disjunction[y];
-                    y++;
-                  }
-                  z++;
-                }
-
-                // check the validity of this merged tuple
-                y = 0;
-                boolean drop = false;
-                for (x = 0; x < mergeCons.length - 1; x++) {
-                  while (Math.abs(mergeCons[x]) > relation[y][relation[y].length - 1])
-                    y++;
-                  // get two different values for a same parameter
-                  if (Math.abs(mergeCons[x + 1]) <= relation[y][relation[y].length - 1] && mergeCons[x] != mergeCons[x + 1]) {
-                    drop = true;
-                    break;
-                  }
-                }
-
-                // if it is a valid and non-duplicated tuple, save it
-                if (!drop) {
-                  List<Integer> list = new ArrayList<>();
-                  for (x = 0; x < mergeCons.length; x++) {
-                    if (!list.contains(mergeCons[x])) {
-                      list.add(mergeCons[x]);
-                    }
-                  }
-                  int[] deducedCons = new int[list.size()];
-                  for (x = 0; x < list.size(); x++) {
-                    deducedCons[x] = list.get(x);
-                  }
-                  // if it is not in cartesian
-                  if (!isDuplicated(cartesian, deducedCons))
-                    cartesian.add(new Constraint((deducedCons)));
-                }
-              }
-          } // end else
-        } // end for each value
-
+          cartesian = next.tuples();
+          if (cartesian.size() == 0)
+            break;
+        }
         newConstraint.addAll(cartesian);
-      }  // end for every implicit parameter
+      }
 
       // store new constraints and calculate implicit parameters for the next round
-      for (Constraint consN : newConstraint) {
-        // check whether the constraint consN is duplicated
-        boolean isNew = true;
-        for (Constraint consB : originalConstraint) {
-          if (consB.isSuperior(consN)) {
-            isNew = false;
-            break;
-          }
-        }
-        if (isNew) {
-          originalConstraint.add(consN);
-          int k = 0;
-          for (int y = 0; y < consN.disjunction.length; y++) {
-            // if a new constraint is added, and it contains an implicit parameter
-            // then include this parameter in next round
-            while (Math.abs(consN.disjunction[y]) > relation[k][relation[k].length - 1])
-              k++;
-            if (imParameter1.contains(k) && !tempParameter.contains(k))
-              tempParameter.add(k);
-          }
-        }
+      LinkedHashSet<Integer> tempParameter = new LinkedHashSet<>();
+      for (int[] consN : newConstraint) {
+        if (set.isSubsumed(consN))
+          continue;
+        set.add(consN);
+        // if a new constraint is added, and it contains an implicit parameter
+        // then include this parameter in next round
+        for (int l : consN)
+          if (isImParameter[literalParameter[l]])
+            tempParameter.add(literalParameter[l]);
       }
 
       // update the new implicit parameters
-      imParameter.clear();
-      imParameter.addAll(tempParameter);
-
-      // minimise constraints
-      minimise(originalConstraint);
-
-    } // end the outer while loop
+      imParameter = new ArrayList<>(tempParameter);
+    }
 
-    // update MFT
-    MFT = new Vector<>();
-    for (Constraint cons : originalConstraint) {
-      int[] sort = sort(cons.disjunction);
-      MFT.add(new Constraint(sort));
+    // update MFT, where each tuple is a disjunction of negative literals
+    ArrayList<Constraint> list = new ArrayList<>();
+    for (int[] c : set.tuples()) {
+      int[] disjunction = new int[c.length];
+      for (int k = 0; k < c.length; k++)
+        disjunction[k] = -c[k];
+      list.add(new Constraint(disjunction));
     }
+    MFT = new ForbiddenTuples(list, relation);
     //System.out.println("MFT size = " + MFT.size());
   }
 
   /**
-   * Return a sorted array of non-increasing order.
+   * Return the canonical form of a constraint, i.e. the sorted and distinct
+   * positive literals, or null if it involves two values of a same parameter.
    */
-  private int[] sort(final int[] a) {
-    int[] b = a.clone();
-    for (int i = 1; i < b.length; i++) {
-      int key = b[i];
-      int j = i - 1;
-      while (j >= 0 && b[j] < key) {
-        b[j + 1] = b[j];
-        j = j - 1;
-      }
-      b[j + 1] = key;
+  private int[] canonical(final int[] x) {
+    int[] c = new int[x.length];
+    for (int k = 0; k < x.length; k++)
+      c[k] = Math.abs(x[k]);
+    Arrays.sort(c);
+    int n = 0;
+    for (int k = 0; k < c.length; k++) {
+      if (n > 0 && c[n - 1] == c[k])
+        continue;
+      if (n > 0 && literalParameter[c[n - 1]] == literalParameter[c[k]])
+        return null;
+      c[n++] = c[k];
     }
-    return b;
+    return Arrays.copyOf(c, n);
   }
 
   /**
-   * Determine whether A is contained in the set of constraint V.
+   * Merge two canonical tuples, return null if the result involves two
+   * values of a same parameter.
    */
-  private boolean isDuplicated(Vector<Constraint> V, int[] A) {
-    for (int i = 0; i < V.size(); i++) {
-      int[] b = V.get(i).disjunction;
-      boolean re;
-      if (b.length == A.length) {
-        re = true;
-        for (int j = 0; j < b.length; j++) {
-          if (b[j] != A[j]) {
-            re = false;
-            break;
-          }
-        }
-        if (re)
-          return true;
+  private int[] merge(final int[] a, final int[] b) {
+    int[] c = new int[a.length + b.length];
+    int x = 0, y = 0, n = 0;
+    while (x < a.length || y < b.length) {
+      int l;
+      if (y >= b.length || (x < a.length && a[x] < b[y]))
+        l = a[x++];
+      else if (x >= a.length || b[y] < a[x])
+        l = b[y++];
+      else {
+        l = a[x++];
+        y++;
       }
+      if (n > 0 && literalParameter[c[n - 1]] == literalParameter[l])
+        return null;
+      c[n++] = l;
     }
-    return false;
+    return n == c.length ? c : Arrays.copyOf(c, n);
   }
 
   /**
-   * Minimise the given set of constraints: only keep the minimal constraint
-   * in the constraint set.
+   * A hashed int array, e.g. a canonical tuple or a test case.
    */
-  private void minimise(Vector<Constraint> constraintSet) {
-    // the indexes of to-be-removed constraints
-    ArrayList<Integer> removeList = new ArrayList<>();
-    for (int i = 0; i < constraintSet.size() - 1; i++) {
-      for (int j = i + 1; j < constraintSet.size(); j++) {
-        Constraint c1 = constraintSet.get(i), c2 = constraintSet.get(j);
-        // if the two constraints are involved in each other
-        // then remove the large one
-        if (check(c1, c2)) {
-          if (c1.disjunction.length <= c2.disjunction.length) {
-            if (!removeList.contains(j))
-              removeList.add(j);
-          } else {
-            if (!removeList.contains(i))
-              removeList.add(i);
-          }
-        }
-      }
+  static final class Key {
+    final int[] tuple;
+    final int hash;
+
+    Key(int[] tuple) {
+      this.tuple = tuple;
+      this.hash = Arrays.hashCode(tuple);
     }
-    //remove constraint, begin with large index
-    Collections.sort(removeList, Collections.reverseOrder());
-    for (int i = 0; i < removeList.size(); i++) {
-      constraintSet.removeElementAt(removeList.get(i));
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Key && Arrays.equals(tuple, ((Key) other).tuple);
+    }
+
+    @Override
+    public String toString() {
+      return Arrays.toString(tuple);
     }
   }
 
   /**
-   * Given two constraints (disjunction form), determine whether one is
-   * involved in another.
+   * A minimal set of canonical forbidden tuples, i.e. no tuple is contained in
+   * another one. Tuples are stored in a trie of their sorted literals to answer
+   * subsumption queries, and indexed by each of their literals.
    */
-  private boolean check(Constraint A, Constraint B) {
-    // ensure tht |X| <= |Y|
-    Constraint X, Y;
-    if (A.disjunction.length <= B.disjunction.length) {
-      X = A;
-      Y = B;
-    } else {
-      X = B;
-      Y = A;
+  private static final class TupleSet {
+    private final ArrayList<int[]> tuples = new ArrayList<>();
+    private final ArrayList<Node> leaves = new ArrayList<>();
+    private final ArrayList<ArrayList<Integer>> byLiteral = new ArrayList<>();
+    private final Node root = new Node();
+    private final int[] aliveCount;
+    private final boolean[] mark;
+    // whether the set contains an empty tuple, i.e. nothing is valid
+    private boolean empty;
+
+    TupleSet(int literals) {
+      for (int l = 0; l <= literals; l++)
+        byLiteral.add(new ArrayList<>());
+      aliveCount = new int[literals + 1];
+      mark = new boolean[literals + 1];
     }
 
-    boolean match = true;
-    for (int i = 0; i < X.disjunction.length; i++) {
-      int j;
-      for (j = 0; j < Y.disjunction.length; j++)
-        if (X.disjunction[i] == Y.disjunction[j])
-          break;
-      if (j == Y.disjunction.length && X.disjunction[i] != Y.disjunction[Y.disjunction.length - 1]) {
-        match = false;
-        break;
+    /**
+     * Return the number of tuples that contain literal l.
+     */
+    int count(int l) {
+      return aliveCount[l];
+    }
+
+    /**
+     * Determine whether any tuple in the set is contained in c.
+     */
+    boolean isSubsumed(final int[] c) {
+      return empty || isSubsumed(root, c, 0);
+    }
+
+    // walk the trie along the literals of c[from..]
+    private boolean isSubsumed(Node node, final int[] c, int from) {
+      if (node.children == null)
+        return false;
+      for (int k = from; k < c.length; k++) {
+        Node child = node.children.get(c[k]);
+        if (child != null && (child.alive || isSubsumed(child, c, k + 1)))
+          return true;
       }
+      return false;
+    }
+
+    private boolean isAlive(int id) {
+      return leaves.get(id).alive && leaves.get(id).id == id;
+    }
+
+    /**
+     * Add a tuple that is not subsumed by the set, and remove the tuples
+     * that contain it.
+     */
+    void add(final int[] c) {
+      if (c.length == 0) {
+        // an empty tuple is contained in every tuple
+        for (int id = 0; id < tuples.size(); id++)
+          if (isAlive(id))
+            remove(id);
+        empty = true;
+      } else {
+        // the tuples that contain c must contain its rarest literal
+        int rarest = c[0];
+        for (int l : c)
+          if (byLiteral.get(l).size() < byLiteral.get(rarest).size())
+            rarest = l;
+        for (int l : c)
+          mark[l] = true;
+        for (int id : byLiteral.get(rarest)) {
+          if (!isAlive(id))
+            continue;
+          int matched = 0;
+          for (int l : tuples.get(id))
+            if (mark[l])
+              matched++;
+          if (matched == c.length)
+            remove(id);
+        }
+        for (int l : c)
+          mark[l] = false;
+      }
+
+      int id = tuples.size();
+      Node node = root;
+      for (int l : c) {
+        if (node.children == null)
+          node.children = new HashMap<>();
+        node = node.children.computeIfAbsent(l, x -> new Node());
+      }
+      node.alive = true;
+      node.id = id;
+      tuples.add(c);
+      leaves.add(node);
+      for (int l : c) {
+        byLiteral.get(l).add(id);
+        aliveCount[l]++;
+      }
+    }
+
+    private void remove(int id) {
+      leaves.get(id).alive = false;
+      for (int l : tuples.get(id))
+        aliveCount[l]--;
+    }
+
+    /**
+     * Return all tuples that contain literal l, where l is removed from them.
+     */
+    ArrayList<int[]> without(int l) {
+      ArrayList<int[]> list = new ArrayList<>();
+      for (int id : byLiteral.get(l)) {
+        if (!isAlive(id))
+          continue;
+        int[] t = tuples.get(id);
+        int[] r = new int[t.length - 1];
+        for (int k = 0, n = 0; k < t.length; k++)
+          if (t[k] != l)
+            r[n++] = t[k];
+        list.add(r);
+      }
+      return list;
+    }
+
+    /**
+     * Return all tuples in the set.
+     */
+    ArrayList<int[]> tuples() {
+      ArrayList<int[]> list = new ArrayList<>();
+      for (int id = 0; id < tuples.size(); id++)
+        if (isAlive(id))
+          list.add(tuples.get(id));
+      return list;
     }
-    return match;
+  }
+
+  /**
+   * A node of the trie, which ends an alive tuple if alive is true.
+   */
+  private static final class Node {
+    HashMap<Integer, Node> children;
+    boolean alive;
+    int id = -1;
   }
 
   /**
@@ -313,49 +411,19 @@ public class ValidityChecker {
    * @param test a complete or partial test case
    */
   public boolean isValid(final int[] test) {
-    if (MFT.size() == 0)
-      return true;
-
-    // convert the test case to constraint's form
-    // for example: value = [2,2,2]
-    // TC = [0, 0, -1] will be converted to [1, 3, -1]
-    int[] TC = new int[test.length];
-    int baseNum = 0;
-    for (int i = 0; i < test.length; i++) {
-      if (test[i] != -1)
-        TC[i] = test[i] + baseNum + 1;
-      else
-        TC[i] = -1;
-      baseNum += relation[i].length;
-    }
-
-    // find if the input TC contains any constraint
-    for (Constraint cons : MFT) {
-      boolean matched = true;
-      int k = 0;
-      int j = 0;
-      while (j < cons.disjunction.length) {
-        while (k < TC.length && (TC[k] == -1 || Math.abs(cons.disjunction[j]) > TC[k])) {
-          k++;
-          if (k == TC.length)
-            matched = false;
-        }
-        if (!matched)
-          break;
-        if (Math.abs(cons.disjunction[j]) == TC[k]) {
-          k++;
-          j++;
-        } else {
-          matched = false;
-          break;
-        }
-      }
-      if (matched) {
-        return false;
-      }
-    }
-    return true;
+    return MFT.isValid(test);
   }
 
+  /**
+   * Determine whether a test case is still constraints satisfiable after its
+   * column-th value is changed, given that it was satisfiable before. Only the
+   * MFT that involve the new value of column are checked.
+   *
+   * @param test   a complete or partial test case
+   * @param column the changed column
+   */
+  public boolean isValid(final int[] test, int column) {
+    return MFT.isValid(test, column);
+  }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,434 @@
+package com.neo.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.neo.domain.Result;
+import com.neo.generator.ProgressListener;
+import com.neo.generator.Generator;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * An asynchronous generation job, whose status and progress are updated by the
+ * thread that runs it and read by the request threads. Every change is also
+ * published to the subscribed server-sent event streams, in order, by a
+ * publisher executor, so that a slow client does not stall the generation.
+ */
+public class Job implements ProgressListener {
+
+    public enum Status { QUEUED, RUNNING, DONE, CANCELLED, FAILED }
+
+    private final String id;
+    private final long created;
+    private volatile Status status = Status.QUEUED;
+    private volatile long started;
+    private volatile long finished;
+    private volatile Result result;
+    private volatile String error;
+
+    // progress of the generation
+    private volatile int probe;
+    private volatile int lower;
+    private volatile int upper;
+    private volatile int round;
+    private volatile long uncovered = -1;
+    // the smallest covering array so far, which may be reported by several chains
+    private final AtomicReference<ArrayList<int[]>> best = new AtomicReference<>();
+    private volatile long seed;
+
+    // cancellation, which may be requested before the generator is attached
+    private volatile boolean cancelRequested;
+    private volatile Generator generator;
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    // the events waiting to be sent, and whether a task of the publisher is sending them
+    private final Executor publisher;
+    private final Queue<Runnable> events = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean sending = new AtomicBoolean();
+
+    Job(String id, Executor publisher) {
+        this.id = id;
+        this.created = System.currentTimeMillis();
+        this.publisher = publisher;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getStarted() {
+        return started;
+    }
+
+    public long getFinished() {
+        return finished;
+    }
+
+    /**
+     * Return the running time in milliseconds, up to now if the job is running.
+     */
+    public long getElapsed() {
+        if (started == 0)
+            return 0;
+        return (finished == 0 ? System.currentTimeMillis() : finished) - started;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Return the size of the current probe of the outer search.
+     */
+    public int getProbe() {
+        return probe;
+    }
+
+    public int getLower() {
+        return lower;
+    }
+
+    public int getUpper() {
+        return upper;
+    }
+
+    /**
+     * Return the number of rounds executed by the current probe.
+     */
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * Return the number of uncovered combinations of the current probe,
+     * or -1 if it is not reported yet.
+     */
+    public long getUncovered() {
+        return uncovered;
+    }
+
+    /**
+     * Return the size of the best covering array so far, 0 if there is none.
+     */
+    public int getBestSize() {
+        ArrayList<int[]> suite = best.get();
+        return suite == null ? 0 : suite.size();
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    /**
+     * Return the result, which is available when the job is done or cancelled.
+     */
+    @JsonIgnore
+    public Result getResult() {
+        return result;
+    }
+
+    /**
+     * Return the best covering array so far as a result, or null if there is none.
+     */
+    @JsonIgnore
+    public Result getBestResult() {
+        ArrayList<int[]> suite = best.get();
+        if (suite == null)
+            return null;
+        return new Result(suite, getElapsed(), suite.size(), seed);
+    }
+
+    /**
+     * Determine whether the job is done, cancelled or failed.
+     */
+    public boolean hasFinished() {
+        return status == Status.DONE || status == Status.CANCELLED || status == Status.FAILED;
+    }
+
+    /**
+     * Attach the generator that runs this job, so that its progress is
+     * reported to this job and it can be cancelled.
+     */
+    public void attach(Generator generator) {
+        this.seed = generator.getSeed();
+        generator.setProgressListener(this);
+        this.generator = generator;
+        if (cancelRequested)
+            generator.cancel();
+    }
+
+    /**
+     * Request to cancel the job. A running generation stops as soon as possible
+     * and keeps the best covering array so far as its result.
+     */
+    public void cancel() {
+        cancelRequested = true;
+        Generator gen = generator;
+        if (gen != null)
+            gen.cancel();
+    }
+
+    @Override
+    public void onProbe(int N, int lower, int upper) {
+        this.probe = N;
+        this.lower = lower;
+        this.upper = upper;
+        this.round = 0;
+        this.uncovered = -1;
+        publish("probe", this::snapshot);
+    }
+
+    @Override
+    public void onRound(int N, int round, long uncovered) {
+        this.round = round;
+        this.uncovered = uncovered;
+        publish("progress", this::snapshot);
+    }
+
+    @Override
+    public void onSolution(ArrayList<int[]> suite) {
+        // keep the smaller one of concurrent solutions
+        ArrayList<int[]> current;
+        do {
+            current = best.get();
+            if (current != null && current.size() <= suite.size())
+                return;
+        } while (!best.compareAndSet(current, suite));
+        publish("solution", this::getBestResult);
+    }
+
+    /**
+     * Return the current status and progress as an immutable value, which is
+     * what an event carries, as the job may have changed by the time the
+     * event is sent.
+     */
+    State snapshot() {
+        return new State(this);
+    }
+
+    /**
+     * Add a server-sent event stream, which receives the current status at
+     * once and every change afterwards, until the job is finished.
+     */
+    void subscribe(SseEmitter emitter) {
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitters.add(emitter);
+        // a job that finishes later closes the stream after its queued events
+        State state = snapshot();
+        boolean finished = state.hasFinished();
+        enqueue(() -> {
+            if (!send(emitter, "status", state))
+                return;
+            if (finished && emitters.remove(emitter))
+                emitter.complete();
+        });
+    }
+
+    void start() {
+        started = System.currentTimeMillis();
+        status = Status.RUNNING;
+        publish("status", this::snapshot);
+    }
+
+    void complete(Result result) {
+        this.result = result;
+        finished = System.currentTimeMillis();
+        status = cancelRequested ? Status.CANCELLED : Status.DONE;
+        close();
+    }
+
+    void fail(Throwable e) {
+        error = e.toString();
+        finished = System.currentTimeMillis();
+        status = Status.FAILED;
+        close();
+    }
+
+    /**
+     * Publish the final status, and end all event streams.
+     */
+    private void close() {
+        publish("status", this::snapshot);
+        enqueue(() -> {
+            for (SseEmitter emitter : emitters) {
+                if (emitters.remove(emitter))
+                    emitter.complete();
+            }
+        });
+    }
+
+    /**
+     * Publish an event whose data is taken now, unless nobody is listening.
+     */
+    private void publish(String name, Supplier<?> value) {
+        if (emitters.isEmpty())
+            return;
+        Object data = value.get();
+        enqueue(() -> {
+            for (SseEmitter emitter : emitters)
+                send(emitter, name, data);
+        });
+    }
+
+    /**
+     * Add an event to the queue, which is sent by the publisher after the
+     * events added before.
+     */
+    private void enqueue(Runnable event) {
+        events.add(event);
+        schedule();
+    }
+
+    private void schedule() {
+        if (!sending.compareAndSet(false, true))
+            return;
+        try {
+            publisher.execute(this::sendEvents);
+        } catch (RejectedExecutionException e) {
+            // the service is shut down, and the streams are closed anyway
+            events.clear();
+            sending.set(false);
+        }
+    }
+
+    private void sendEvents() {
+        Runnable event;
+        while ((event = events.poll()) != null)
+            event.run();
+        sending.set(false);
+        // an event may be added after the last poll, but before the flag is reset
+        if (!events.isEmpty())
+            schedule();
+    }
+
+    /**
+     * Send an event, and drop the stream if the client is gone.
+     */
+    private boolean send(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            emitters.remove(emitter);
+            return false;
+        }
+    }
+
+    /**
+     * The status and progress of a job at some moment, which has the same
+     * JSON form as the job itself.
+     */
+    public static final class State {
+        private final String id;
+        private final long created;
+        private final Status status;
+        private final long started;
+        private final long finished;
+        private final long elapsed;
+        private final String error;
+        private final int probe;
+        private final int lower;
+        private final int upper;
+        private final int round;
+        private final long uncovered;
+        private final boolean cancelRequested;
+        private final int bestSize;
+
+        private State(Job job) {
+            // the status first, so that a finished status comes with the final progress
+            this.status = job.status;
+            this.id = job.id;
+            this.created = job.created;
+            this.started = job.started;
+            this.finished = job.finished;
+            this.elapsed = job.getElapsed();
+            this.error = job.error;
+            this.probe = job.probe;
+            this.lower = job.lower;
+            this.upper = job.upper;
+            this.round = job.round;
+            this.uncovered = job.uncovered;
+            this.cancelRequested = job.cancelRequested;
+            this.bestSize = job.getBestSize();
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public long getCreated() {
+            return created;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public long getStarted() {
+            return started;
+        }
+
+        public long getFinished() {
+            return finished;
+        }
+
+        public long getElapsed() {
+            return elapsed;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public int getProbe() {
+            return probe;
+        }
+
+        public int getLower() {
+            return lower;
+        }
+
+        public int getUpper() {
+            return upper;
+        }
+
+        public int getRound() {
+            return round;
+        }
+
+        public long getUncovered() {
+            return uncovered;
+        }
+
+        public boolean isCancelRequested() {
+            return cancelRequested;
+        }
+
+        public int getBestSize() {
+            return bestSize;
+        }
+
+        boolean hasFinished() {
+            return status == Status.DONE || status == Status.CANCELLED || status == Status.FAILED;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.neo.service;
+
+import com.neo.domain.Result;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Run generation jobs on a bounded executor, so that long generation runs do
+ * not occupy the request threads. A job that cannot be queued is rejected, and
+ * finished jobs are evicted after a TTL. The server-sent events of all jobs
+ * are sent by a separate publisher.
+ */
+@Service
+public class JobService {
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService cleaner;
+    private final ExecutorService publisher = Executors.newCachedThreadPool();
+    private final long ttl;
+
+    /**
+     * @param threads  number of jobs that run at the same time, 0 for the number of processors
+     * @param capacity number of jobs that can wait in the queue
+     * @param ttl      seconds for which a finished job is kept
+     */
+    public JobService(@Value("${generation.threads:0}") int threads,
+                      @Value("${generation.queue-capacity:64}") int capacity,
+                      @Value("${generation.job-ttl:3600}") long ttl) {
+        if (threads <= 0)
+            threads = Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity));
+        this.ttl = TimeUnit.SECONDS.toMillis(ttl);
+        this.cleaner = Executors.newSingleThreadScheduledExecutor();
+        long period = Math.max(1, Math.min(ttl, 60));
+        cleaner.scheduleWithFixedDelay(this::evict, period, period, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Submit a generation task, and return its job immediately. The task
+     * receives its job, to which the generator should be attached.
+     *
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public Job submit(Function<Job, Result> task) {
+        Job job = new Job(UUID.randomUUID().toString(), publisher);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> {
+                // a job cancelled in the queue is not started at all
+                if (job.isCancelRequested()) {
+                    job.complete(null);
+                    return;
+                }
+                job.start();
+                try {
+                    job.complete(task.apply(job));
+                } catch (Throwable e) {
+                    job.fail(e);
+                    if (e instanceof Error)
+                        throw (Error) e;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * Return the job of a given id, or null if there is no such job.
+     */
+    public Job get(String id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * Return a server-sent event stream of a job, which lasts at most ttl.
+     */
+    public SseEmitter subscribe(Job job) {
+        SseEmitter emitter = new SseEmitter(ttl);
+        job.subscribe(emitter);
+        return emitter;
+    }
+
+    /**
+     * Remove the jobs that finished more than ttl ago.
+     */
+    void evict() {
+        long now = System.currentTimeMillis();
+        jobs.values().removeIf(job -> job.hasFinished() && now - job.getFinished() > ttl);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cleaner.shutdownNow();
+        executor.shutdownNow();
+        publisher.shutdownNow();
+    }
+}
@@ -0,0 +1,339 @@
+package com.neo.service;
+
+import com.neo.combinatorial.CTModel;
+import com.neo.domain.Result;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A cache of generation results, keyed by the SHA-256 hash of the canonical
+ * form of a model (see CTModel.canonicalForm) and the generator settings.
+ *
+ * The cache is bounded by both the number of entries and the estimated bytes
+ * of the test suites, where the least recently used entries are evicted first,
+ * and an entry expires after a TTL. If a directory is given, each entry is also
+ * written to a JSON file, so that the cache survives restarts. The files are
+ * read, written and deleted outside the lock, so a slow disk does not block
+ * the other requests.
+ *
+ * The results are copied on the way in and out, so that a caller cannot
+ * modify a cached result.
+ */
+@Service
+public class ResultCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ResultCache.class);
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttl;
+    private final Path directory;
+
+    // the entries in access order, and the statistics, all guarded by this
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maxEntries maximum number of entries, 0 disables the cache
+     * @param maxBytes   maximum estimated bytes of all entries
+     * @param ttl        seconds for which an entry is kept
+     * @param directory  directory to persist entries, empty for no persistence
+     */
+    public ResultCache(@Value("${generation.cache.max-entries:1000}") int maxEntries,
+                       @Value("${generation.cache.max-bytes:268435456}") long maxBytes,
+                       @Value("${generation.cache.ttl:86400}") long ttl,
+                       @Value("${generation.cache.dir:}") String directory) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttl = TimeUnit.SECONDS.toMillis(ttl);
+        this.directory = directory.isEmpty() ? null : Paths.get(directory);
+        load();
+    }
+
+    /**
+     * Return the cache key of a model generated by given settings.
+     *
+     * @param model    a CT model
+     * @param settings the generator and its options that affect the result
+     */
+    public static String key(CTModel model, String settings) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((model.canonicalForm() + "|" + settings).getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : hash)
+                sb.append(String.format("%02x", b));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Return a copy of the cached result of a key, or null if there is no such result.
+     */
+    public Result get(String key) {
+        List<String> expired = new ArrayList<>();
+        Result result;
+        synchronized (this) {
+            result = lookup(key, expired);
+        }
+        delete(expired);
+        return result == null ? null : copy(result);
+    }
+
+    private Result lookup(String key, List<String> expired) {
+        Entry entry = entries.get(key);
+        if (entry != null && System.currentTimeMillis() - entry.created > ttl) {
+            remove(key, expired);
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.result;
+    }
+
+    /**
+     * Add a result to the cache, and evict the least recently used entries
+     * if the cache is full.
+     */
+    public void put(String key, Result result) {
+        List<String> removed = new ArrayList<>();
+        Entry entry;
+        synchronized (this) {
+            entry = put(key, copy(result), System.currentTimeMillis(), removed);
+        }
+        delete(removed);
+        if (entry != null)
+            write(key, entry);
+    }
+
+    /**
+     * Add an entry, and return it, or null if it is not cached. The keys of
+     * the replaced and evicted entries are added to removed, whose files are
+     * to be deleted after the lock is released.
+     */
+    private Entry put(String key, Result result, long created, List<String> removed) {
+        if (maxEntries <= 0)
+            return null;
+        Entry entry = new Entry(result, created);
+        if (entry.bytes > maxBytes)
+            return null;
+        remove(key, removed);
+        entries.put(key, entry);
+        bytes += entry.bytes;
+
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            it.remove();
+            eldest.getValue().removed = true;
+            bytes -= eldest.getValue().bytes;
+            removed.add(eldest.getKey());
+            evictions++;
+        }
+        return entry.removed ? null : entry;
+    }
+
+    private void remove(String key, List<String> removed) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            entry.removed = true;
+            bytes -= entry.bytes;
+            removed.add(key);
+        }
+    }
+
+    /**
+     * Return the statistics of the cache.
+     */
+    public synchronized Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("evictions", evictions);
+        stats.put("entries", (long) entries.size());
+        stats.put("bytes", bytes);
+        return stats;
+    }
+
+    /**
+     * Load the persisted entries that have not expired, from the oldest to the
+     * newest, so that the newest ones are kept if the cache is full. The files
+     * are read first, and only the entries are added under the lock.
+     */
+    private void load() {
+        if (directory == null)
+            return;
+        File[] files = directory.toFile().listFiles((dir, name) -> name.endsWith(".json"));
+        if (files == null)
+            return;
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        long now = System.currentTimeMillis();
+        List<String> keys = new ArrayList<>();
+        List<Entry> loaded = new ArrayList<>();
+        for (File file : files) {
+            String key = file.getName().substring(0, file.getName().length() - ".json".length());
+            try {
+                long modified = file.lastModified();
+                if (now - modified > ttl) {
+                    Files.deleteIfExists(file.toPath());
+                    continue;
+                }
+                String json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+                keys.add(key);
+                loaded.add(new Entry(fromJson(new JSONObject(json)), modified));
+            } catch (IOException | RuntimeException e) {
+                log.warn("skip cache file {}", file, e);
+            }
+        }
+
+        List<String> removed = new ArrayList<>();
+        synchronized (this) {
+            for (int i = 0; i < keys.size(); i++) {
+                Entry entry = put(keys.get(i), loaded.get(i).result, loaded.get(i).created, removed);
+                if (entry != null)
+                    entry.persisted = true;
+            }
+        }
+        delete(removed);
+    }
+
+    /**
+     * Write an entry to a temporary file, and then rename it to the file of
+     * the key under the lock, unless the entry has been evicted or replaced
+     * in the meantime.
+     */
+    private void write(String key, Entry entry) {
+        if (directory == null)
+            return;
+        Path tmp = null;
+        try {
+            Files.createDirectories(directory);
+            tmp = Files.createTempFile(directory, key, ".tmp");
+            Files.write(tmp, toJson(entry.result).toString().getBytes(StandardCharsets.UTF_8));
+            synchronized (this) {
+                if (!entry.removed) {
+                    Files.move(tmp, directory.resolve(key + ".json"), StandardCopyOption.REPLACE_EXISTING);
+                    entry.persisted = true;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("cannot persist cache entry {}", key, e);
+        } finally {
+            try {
+                if (tmp != null)
+                    Files.deleteIfExists(tmp);
+            } catch (IOException e) {
+                log.warn("cannot delete {}", tmp, e);
+            }
+        }
+    }
+
+    /**
+     * Delete the files of removed entries. A file deleted after a new entry
+     * of the same key has been written is written again.
+     */
+    private void delete(List<String> keys) {
+        if (directory == null)
+            return;
+        for (String key : keys) {
+            try {
+                Files.deleteIfExists(directory.resolve(key + ".json"));
+            } catch (IOException e) {
+                log.warn("cannot delete cache entry {}", key, e);
+            }
+            Entry entry;
+            synchronized (this) {
+                entry = entries.get(key);
+                if (entry == null || !entry.persisted)
+                    continue;
+                entry.persisted = false;
+            }
+            write(key, entry);
+        }
+    }
+
+    private static JSONObject toJson(Result result) {
+        JSONArray suite = new JSONArray();
+        for (int[] test : result.getTestsuite()) {
+            JSONArray row = new JSONArray();
+            for (int value : test)
+                row.put(value);
+            suite.put(row);
+        }
+        JSONObject json = new JSONObject();
+        json.put("testsuite", suite);
+        json.put("time", (long) result.getTime());
+        json.put("size", result.getSize());
+        json.put("seed", result.getSeed());
+        return json;
+    }
+
+    private static Result fromJson(JSONObject json) {
+        JSONArray suite = json.getJSONArray("testsuite");
+        ArrayList<int[]> testsuite = new ArrayList<>();
+        for (int i = 0; i < suite.length(); i++) {
+            JSONArray row = suite.getJSONArray(i);
+            int[] test = new int[row.length()];
+            for (int j = 0; j < test.length; j++)
+                test[j] = row.getInt(j);
+            testsuite.add(test);
+        }
+        return new Result(testsuite, json.getLong("time"), json.getInt("size"), json.optLong("seed"));
+    }
+
+    private static Result copy(Result result) {
+        ArrayList<int[]> testsuite = new ArrayList<>(result.getTestsuite().size());
+        for (int[] test : result.getTestsuite())
+            testsuite.add(test.clone());
+        return new Result(testsuite, (long) result.getTime(), result.getSize(), result.getSeed());
+    }
+
+    private static class Entry {
+        final Result result;
+        final long created;
+        final long bytes;
+        // whether the entry has been evicted or replaced, and whether its file
+        // has been written, both guarded by the cache
+        boolean removed;
+        boolean persisted;
+
+        Entry(Result result, long created) {
+            this.result = result;
+            this.created = created;
+            // an estimate of the test suite: array headers and int values
+            long size = 64;
+            for (int[] test : result.getTestsuite())
+                size += 16 + 4L * test.length;
+            this.bytes = size;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.neo;
+
+import com.neo.combinatorial.CTModel;
+import com.neo.generator.ValidityChecker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Models and oracles shared by the tests.
+ */
+public final class TestModels {
+
+	private TestModels() {
+	}
+
+	/**
+	 * Return random constraints of a model, each of which forbids 1 to 3
+	 * values of distinct parameters, in the "parameter/value" form.
+	 */
+	public static List<List<String>> randomConstraints(Random random, int[] value, int count) {
+		List<List<String>> cons = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			int length = 1 + random.nextInt(Math.min(3, value.length));
+			List<Integer> parameters = new ArrayList<>();
+			while (parameters.size() < length) {
+				int p = random.nextInt(value.length);
+				if (!parameters.contains(p))
+					parameters.add(p);
+			}
+			List<String> c = new ArrayList<>();
+			for (int p : parameters)
+				c.add(p + "/" + random.nextInt(value[p]));
+			cons.add(c);
+		}
+		return cons;
+	}
+
+	/**
+	 * Return a model with random constraints, where single-value constraints
+	 * are rare so that most models are satisfiable.
+	 */
+	public static CTModel constrained(long seed, int parameter, int v, int t, ValidityChecker checker) {
+		Random random = new Random(seed);
+		int[] value = new int[parameter];
+		Arrays.fill(value, v);
+		List<List<String>> cons = new ArrayList<>();
+		for (List<String> c : randomConstraints(random, value, 2 * parameter)) {
+			if (c.size() > 1 || random.nextInt(4) == 0)
+				cons.add(c);
+		}
+		return new CTModel(parameter, value, t, cons, checker);
+	}
+
+	/**
+	 * Return a model where every value of the first parameter is forbidden.
+	 */
+	public static CTModel unsatisfiable(ValidityChecker checker) {
+		int[] value = {2, 3, 2, 2};
+		List<List<String>> cons = new ArrayList<>();
+		cons.add(Arrays.asList("0/0", "1/0"));
+		cons.add(Arrays.asList("0/0", "1/1"));
+		cons.add(Arrays.asList("0/0", "1/2"));
+		cons.add(Arrays.asList("0/1", "2/0"));
+		cons.add(Arrays.asList("0/1", "2/1"));
+		return new CTModel(value.length, value, 2, cons, checker);
+	}
+
+	/**
+	 * Return a random partial test case, where each value is unfixed (-1)
+	 * with the given probability.
+	 */
+	public static int[] randomTest(Random random, CTModel model, double unfixed) {
+		int[] test = new int[model.parameter];
+		for (int p = 0; p < model.parameter; p++)
+			test[p] = random.nextDouble() < unfixed ? -1 : random.nextInt(model.value[p]);
+		return test;
+	}
+
+	/**
+	 * Return the number of constraints that a complete or partial test case
+	 * violates, i.e. all of whose values are fixed in the test case.
+	 */
+	public static int violations(CTModel model, int[] test) {
+		int count = 0;
+		for (int[] c : model.constraint) {
+			boolean all = true;
+			for (int l : c)
+				all &= contains(model, test, -l);
+			if (all)
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Determine whether a complete or partial test case can be completed into a
+	 * test case that violates no constraint, by enumerating all completions.
+	 */
+	public static boolean bruteForceValid(CTModel model, int[] test) {
+		return complete(model, test.clone(), 0);
+	}
+
+	private static boolean complete(CTModel model, int[] test, int p) {
+		if (violations(model, test) > 0)
+			return false;
+		if (p == model.parameter)
+			return true;
+		if (test[p] != -1)
+			return complete(model, test, p + 1);
+		for (int v = 0; v < model.value[p]; v++) {
+			test[p] = v;
+			if (complete(model, test, p + 1))
+				return true;
+		}
+		test[p] = -1;
+		return false;
+	}
+
+	/**
+	 * Return the number of valid t-way combinations that a test suite does not
+	 * cover, by enumerating all combinations.
+	 */
+	public static long uncovered(CTModel model, List<int[]> suite) {
+		long count = 0;
+		int t = model.t_way;
+		int[] position = new int[t];
+		for (int i = 0; i < t; i++)
+			position[i] = i;
+		while (position[0] <= model.parameter - t) {
+			int[] schema = new int[t];
+			while (true) {
+				int[] tuple = new int[model.parameter];
+				Arrays.fill(tuple, -1);
+				for (int k = 0; k < t; k++)
+					tuple[position[k]] = schema[k];
+				if (bruteForceValid(model, tuple) && !covers(suite, position, schema))
+					count++;
+				int k = t - 1;
+				while (k >= 0 && ++schema[k] == model.value[position[k]])
+					schema[k--] = 0;
+				if (k < 0)
+					break;
+			}
+			int k = t - 1;
+			while (k >= 0 && ++position[k] > model.parameter - t + k)
+				k--;
+			if (k < 0)
+				break;
+			for (int j = k + 1; j < t; j++)
+				position[j] = position[j - 1] + 1;
+		}
+		return count;
+	}
+
+	private static boolean covers(List<int[]> suite, int[] position, int[] schema) {
+		for (int[] test : suite) {
+			boolean match = true;
+			for (int k = 0; k < position.length && match; k++)
+				match = test[position[k]] == schema[k];
+			if (match)
+				return true;
+		}
+		return false;
+	}
+
+	private static boolean contains(CTModel model, int[] test, int literal) {
+		for (int p = 0; p < model.parameter; p++)
+			if (test[p] != -1 && model.relation[p][test[p]] == literal)
+				return true;
+		return false;
+	}
+
+}
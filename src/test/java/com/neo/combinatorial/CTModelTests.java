@@ -0,0 +1,60 @@
+package com.neo.combinatorial;
+
+import com.neo.TestModels;
+import com.neo.common.BArray;
+import com.neo.generator.SATChecker;
+import com.neo.generator.ValidityChecker;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CTModelTests {
+
+	@Test
+	public void removesTheSameCombinationsAsSerialLoop() {
+		for (long seed = 0; seed < 10; seed++) {
+			for (int t = 2; t <= 3; t++) {
+				assertRemoval(TestModels.constrained(seed, 8, 3, t, new ValidityChecker()));
+				assertRemoval(TestModels.constrained(seed, 8, 3, t, new SATChecker()));
+			}
+		}
+	}
+
+	@Test
+	public void removesAllCombinationsOfUnsatisfiableModel() {
+		for (ValidityChecker checker : new ValidityChecker[]{new ValidityChecker(), new SATChecker()}) {
+			CTModel model = TestModels.unsatisfiable(checker);
+			assertRemoval(model);
+			assertEquals(0, model.getCombAll());
+		}
+	}
+
+	/**
+	 * Compare removeInvalidCombinations() with the serial loop that checks each
+	 * combination by isValid(position, schema).
+	 */
+	private static void assertRemoval(CTModel model) {
+		model.initialization();
+		boolean[][] invalid = new boolean[model.getPcNumber()][];
+		long valid = 0;
+		BArray combination = model.getCombination();
+		for (int row = 0; row < model.getPcNumber(); row++) {
+			int[] position = model.getParameterCombination(row);
+			invalid[row] = new boolean[combination.getColumnNumber(row)];
+			for (int column = 0; column < invalid[row].length; column++) {
+				invalid[row][column] = !model.isValid(position, model.schema(row, column));
+				if (!invalid[row][column])
+					valid++;
+			}
+		}
+
+		model.removeInvalidCombinations();
+		for (int row = 0; row < invalid.length; row++)
+			for (int column = 0; column < invalid[row].length; column++)
+				assertEquals("row " + row + ", column " + column,
+						invalid[row][column], combination.getElement(row, column));
+		assertEquals(valid, model.getCombAll());
+		assertEquals(valid, model.getCombUncovered());
+	}
+
+}
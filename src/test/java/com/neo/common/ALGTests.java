@@ -0,0 +1,52 @@
+package com.neo.common;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+public class ALGTests {
+
+	@Test
+	public void cursorListsAllCombinationsInLexicographicOrder() {
+		for (int n = 1; n <= 12; n++) {
+			for (int m = 0; m <= n; m++) {
+				int[] c = ALG.firstCombination(m);
+				int[] previous = null;
+				long count = 0;
+				do {
+					for (int i = 1; i < m; i++)
+						assertTrue(c[i - 1] < c[i]);
+					if (m > 0)
+						assertTrue(c[0] >= 0 && c[m - 1] < n);
+					if (previous != null)
+						assertTrue(lexicographicLess(previous, c));
+					previous = c.clone();
+					count++;
+				} while (ALG.nextCombination(c, n));
+				assertEquals("C(" + n + ", " + m + ")", ALG.binomial(n, m).get(n, m), count);
+			}
+		}
+	}
+
+	@Test
+	public void allCombinationMatchesTheCursorAndRanks() {
+		int n = 9, m = 4;
+		ArrayList<int[]> all = ALG.allCombination(n, m);
+		assertEquals(ALG.combine(n, m), all.size());
+		for (int i = 0; i < all.size(); i++) {
+			assertEquals(i, ALG.combine2num(all.get(i), n, m));
+			assertArrayEquals(all.get(i), ALG.num2combine(i, n, m));
+		}
+		assertTrue(ALG.allCombination(3, 4).isEmpty());
+	}
+
+	private static boolean lexicographicLess(int[] a, int[] b) {
+		for (int i = 0; i < a.length; i++)
+			if (a[i] != b[i])
+				return a[i] < b[i];
+		return false;
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.neo.common;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BArrayTests {
+
+	@Test
+	public void randomZeroPositionsMatchPlainMatrix() {
+		Random random = new Random(1);
+		int[] length = {3, 0, 70, 1, 129, 0, 64};
+		BArray array = new BArray(length.length);
+		boolean[][] matrix = new boolean[length.length][];
+		long zeros = 0;
+		for (int i = 0; i < length.length; i++) {
+			array.initializeRow(i, length[i]);
+			matrix[i] = new boolean[length[i]];
+			zeros += length[i];
+		}
+		array.initializeZeros();
+		assertEquals(zeros, array.getZeroNumber());
+
+		// cover random zero positions, and reset a few elements in between
+		while (zeros > 0) {
+			Position p = array.getRandomZeroPosition();
+			assertFalse(matrix[p.row][p.column]);
+			array.setElement(p.row, p.column, true);
+			matrix[p.row][p.column] = true;
+			zeros--;
+			if (random.nextInt(4) == 0) {
+				array.setElement(p.row, p.column, false);
+				matrix[p.row][p.column] = false;
+				zeros++;
+			}
+			assertEquals(zeros, array.getZeroNumber());
+		}
+		assertNull(array.getRandomZeroPosition());
+
+		for (int i = 0; i < length.length; i++) {
+			assertEquals(0, array.getZeroNumber(i));
+			for (int j = 0; j < length[i]; j++)
+				assertTrue(array.getElement(i, j));
+		}
+	}
+
+	@Test
+	public void randomZeroPositionsAreUniform() {
+		BArray array = new BArray(3);
+		array.initializeRow(0, 5);
+		array.initializeRow(1, 70);
+		array.initializeRow(2, 25);
+		array.initializeZeros();
+		array.setSeed(3);
+		for (int j = 0; j < 70; j += 2)
+			array.setElement(1, j, true);
+
+		// 65 zeros, each of which is drawn about 1000 times
+		int[][] count = new int[3][70];
+		for (int i = 0; i < 65000; i++) {
+			Position p = array.getRandomZeroPosition();
+			assertFalse(array.getElement(p.row, p.column));
+			count[p.row][p.column]++;
+		}
+		for (int i = 0; i < 3; i++)
+			for (int j = 0; j < array.getColumnNumber(i); j++)
+				if (!array.getElement(i, j))
+					assertTrue(i + ", " + j + ": " + count[i][j], count[i][j] > 850 && count[i][j] < 1150);
+	}
+
+	@Test
+	public void matrixIsASnapshot() {
+		BArray array = new BArray(2, 3);
+		array.setElement(1, 2, true);
+		boolean[][] matrix = array.getMatrix();
+		assertTrue(matrix[1][2]);
+		assertFalse(matrix[0][0]);
+
+		matrix[0][0] = true;
+		assertFalse(array.getElement(0, 0));
+		array.setElement(0, 1, true);
+		assertFalse(matrix[0][1]);
+		assertTrue(array.getMatrix()[0][1]);
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.neo.common;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BinomialTests {
+
+	@Test
+	public void unrankInvertsRank() {
+		Binomial binomial = new Binomial(20, 6);
+		for (int p = 1; p <= 20; p++) {
+			for (int k = 1; k <= Math.min(p, 6); k++) {
+				int[] c = ALG.firstCombination(k);
+				int[] d = new int[k];
+				long index = 0;
+				do {
+					assertEquals(index, binomial.rank(p, c));
+					binomial.unrank(p, index, d);
+					assertArrayEquals(c, d);
+					index++;
+				} while (ALG.nextCombination(c, p));
+				assertEquals(binomial.get(p, k), index);
+			}
+		}
+	}
+
+	@Test
+	public void roundTripsNearTheEndOfALargeTable() {
+		// C(66, 33) is the largest central coefficient that fits in long
+		Binomial binomial = new Binomial(66, 33);
+		long total = binomial.get(66, 33);
+		Random random = new Random(7);
+		int[] c = new int[33];
+		int[] d = new int[33];
+		long[] indexes = {0, 1, total / 2, total - 2, total - 1, Math.floorMod(random.nextLong(), total)};
+		for (long index : indexes) {
+			binomial.unrank(66, index, c);
+			for (int i = 1; i < c.length; i++)
+				assertTrue(c[i - 1] < c[i]);
+			assertEquals(index, binomial.rank(66, c));
+			binomial.unrank(66, binomial.rank(66, c), d);
+			assertArrayEquals(c, d);
+		}
+	}
+
+	@Test
+	public void overflowIsReportedAtTheBoundary() {
+		Binomial binomial = new Binomial(68, 34);
+		assertEquals(7219428434016265740L, binomial.get(66, 33));
+		// an overflow propagates to the coefficients that depend on it
+		for (int[] ij : new int[][]{{67, 33}, {67, 34}, {68, 34}}) {
+			try {
+				binomial.get(ij[0], ij[1]);
+				fail("C(" + ij[0] + ", " + ij[1] + ")");
+			} catch (ArithmeticException expected) {
+			}
+		}
+
+		// C(34, 17) = 2333606220 fits in long, but not in int
+		assertEquals(1166803110, binomial.getInt(33, 16));
+		assertEquals(2333606220L, binomial.get(34, 17));
+		try {
+			binomial.getInt(34, 17);
+			fail();
+		} catch (ArithmeticException expected) {
+		}
+
+		assertEquals(0, binomial.get(5, 6));
+		assertEquals(0, binomial.get(5, -1));
+		try {
+			binomial.get(69, 2);
+			fail();
+		} catch (IllegalArgumentException expected) {
+		}
+	}
+
+}
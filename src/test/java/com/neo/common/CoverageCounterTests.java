@@ -0,0 +1,77 @@
+package com.neo.common;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CoverageCounterTests {
+
+	@Test
+	public void widthIsChosenBySize() {
+		assertEquals(Byte.MAX_VALUE, CoverageCounter.bound(0));
+		assertEquals(Byte.MAX_VALUE, CoverageCounter.bound(Byte.MAX_VALUE - 1));
+		assertEquals(Short.MAX_VALUE, CoverageCounter.bound(Byte.MAX_VALUE));
+		assertEquals(Short.MAX_VALUE, CoverageCounter.bound(Short.MAX_VALUE - 1));
+		assertEquals(Integer.MAX_VALUE, CoverageCounter.bound(Short.MAX_VALUE));
+
+		int[] sizes = {1, Byte.MAX_VALUE - 1, Byte.MAX_VALUE, Short.MAX_VALUE - 1, Short.MAX_VALUE, 100000};
+		for (int N : sizes)
+			assertEquals(CoverageCounter.bound(N), CoverageCounter.create(4, new int[0], N).bound());
+	}
+
+	@Test
+	public void countersSupportTheirBound() {
+		for (int N : new int[]{1, Byte.MAX_VALUE, Short.MAX_VALUE}) {
+			CoverageCounter counter = CoverageCounter.create(1, new int[0], N);
+			int bound = counter.bound();
+			for (int i = 0; i < bound; i++)
+				assertEquals(i + 1, counter.increase(0));
+			assertEquals(bound, counter.get(0));
+			assertEquals(bound - 1, counter.decrease(0));
+		}
+	}
+
+	@Test
+	public void resetMarksInvalidCombinations() {
+		int[] invalid = {1, 4};
+		for (int N : new int[]{1, Byte.MAX_VALUE, Short.MAX_VALUE}) {
+			CoverageCounter counter = CoverageCounter.create(6, invalid, N);
+			assertCounters(counter, 0, -1, 0, 0, -1, 0);
+			counter.increase(0);
+			counter.increase(3);
+			counter.increase(3);
+			assertCounters(counter, 1, -1, 0, 2, -1, 0);
+			counter.reset();
+			assertCounters(counter, 0, -1, 0, 0, -1, 0);
+		}
+	}
+
+	@Test
+	public void copyAndAssignAreIndependent() {
+		int[] invalid = {2};
+		for (int N : new int[]{1, Byte.MAX_VALUE, Short.MAX_VALUE}) {
+			CoverageCounter counter = CoverageCounter.create(4, invalid, N);
+			counter.increase(0);
+			counter.increase(3);
+			counter.increase(3);
+
+			CoverageCounter copy = counter.copy();
+			assertEquals(counter.bound(), copy.bound());
+			assertCounters(copy, 1, 0, -1, 2);
+			copy.increase(1);
+			assertCounters(counter, 1, 0, -1, 2);
+
+			CoverageCounter other = CoverageCounter.create(4, invalid, N);
+			other.assign(copy);
+			assertCounters(other, 1, 1, -1, 2);
+			other.decrease(3);
+			assertCounters(copy, 1, 1, -1, 2);
+		}
+	}
+
+	private static void assertCounters(CoverageCounter counter, int... expected) {
+		for (int i = 0; i < expected.length; i++)
+			assertEquals("counter " + i, expected[i], counter.get(i));
+	}
+
+}
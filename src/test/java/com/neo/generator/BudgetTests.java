@@ -0,0 +1,189 @@
+package com.neo.generator;
+
+import com.neo.TestModels;
+import com.neo.combinatorial.CTModel;
+import com.neo.combinatorial.TestCase;
+import com.neo.combinatorial.TestSuite;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class BudgetTests {
+
+	@Test
+	public void cancellationIsNotResetByStart() {
+		Budget budget = new Budget();
+		budget.start();
+		assertFalse(budget.isExhausted());
+		assertFalse(budget.isCancelled());
+
+		// a cancellation before the generation starts is kept
+		budget.cancel();
+		budget.start();
+		assertTrue(budget.isCancelled());
+		assertTrue(budget.isExhausted());
+	}
+
+	@Test
+	public void timeLimitExpiresAndRestartsWithStart() throws InterruptedException {
+		Budget budget = new Budget();
+		budget.setTimeLimit(50, TimeUnit.MILLISECONDS);
+		budget.start();
+		assertFalse(budget.isExhausted());
+		Thread.sleep(80);
+		assertTrue(budget.isExhausted());
+		assertFalse(budget.isCancelled());
+
+		budget.start();
+		assertFalse(budget.isExhausted());
+		// no limit
+		budget.setTimeLimit(0, TimeUnit.SECONDS);
+		budget.start();
+		Thread.sleep(10);
+		assertFalse(budget.isExhausted());
+	}
+
+	@Test
+	public void nestedBudgetDoesNotRestartTheTimeLimit() throws InterruptedException {
+		Budget budget = new Budget();
+		budget.setTimeLimit(50, TimeUnit.MILLISECONDS);
+		budget.start();
+		Budget nested = budget.nested();
+		Thread.sleep(80);
+		nested.start();
+		assertTrue(nested.isExhausted());
+		assertFalse(nested.isCancelled());
+
+		// the nested budget follows the restarts and cancellation of its run
+		budget.start();
+		assertFalse(nested.isExhausted());
+		nested.cancel();
+		assertTrue(budget.isCancelled());
+		assertTrue(budget.nested().isExhausted());
+	}
+
+	@Test
+	public void nestedBudgetRunsOutAtItsShareOfTheTime() throws InterruptedException {
+		Budget budget = new Budget();
+		budget.setTimeLimit(200, TimeUnit.MILLISECONDS);
+		budget.start();
+		Budget nested = budget.nested(0.25);
+		assertFalse(nested.isExhausted());
+		Thread.sleep(80);
+		assertTrue(nested.isExhausted());
+		assertFalse(budget.isExhausted());
+
+		// without a time limit, there is no share
+		budget.setTimeLimit(0, TimeUnit.SECONDS);
+		budget.start();
+		nested = budget.nested(0.25);
+		Thread.sleep(10);
+		assertFalse(nested.isExhausted());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeTimeLimitIsRejected() {
+		new Budget().setTimeLimit(-1, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void cancelledGeneratorStopsAtOnceUntilGivenANewBudget() {
+		SA sa = new SA(false, 3);
+		sa.cancel();
+		long start = System.nanoTime();
+		sa.generation(TestModels.constrained(2, 40, 4, 3, new ValidityChecker()), new TestSuite());
+		assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 5);
+		assertTrue(sa.getBudget().isExhausted());
+
+		sa.setBudget(new Budget());
+		TestSuite ts = new TestSuite();
+		sa.generation(TestModels.constrained(2, 6, 3, 2, new ValidityChecker()), ts);
+		assertFalse(sa.getBudget().isExhausted());
+		assertFalse(ts.suite.isEmpty());
+	}
+
+	@Test
+	public void greedyPhaseCountsTowardsTheTimeLimit() {
+		// a greedy generator that starts its budget late, which must not
+		// restart the time limit of the whole generation
+		SA sa = new SA(false, 5);
+		sa.setInitialGenerator(slowIPOG(300));
+		sa.setTimeLimit(500, TimeUnit.MILLISECONDS);
+		long start = System.nanoTime();
+		sa.generation(TestModels.constrained(4, 40, 4, 3, new ValidityChecker()), new TestSuite());
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue(elapsed + " ms", elapsed < 750);
+	}
+
+	@Test
+	public void searchStartsFromRandomSuitesIfTheGreedyPhaseRunsOut() {
+		// a greedy generator that never finishes, and runs until its budget is exhausted
+		SA sa = new SA(false, 5);
+		sa.setInitialGenerator(new IPOG() {
+			@Override
+			public void generation(CTModel model, TestSuite ts) {
+				getBudget().start();
+				while (!getBudget().isExhausted())
+					Thread.yield();
+			}
+		});
+		sa.setTimeLimit(1000, TimeUnit.MILLISECONDS);
+		CTModel model = TestModels.constrained(2, 10, 3, 2, new ValidityChecker());
+		TestSuite ts = new TestSuite();
+		sa.generation(model, ts);
+		assertFalse(ts.suite.isEmpty());
+		List<int[]> suite = new ArrayList<>();
+		for (TestCase tc : ts.suite) {
+			assertTrue(TestModels.bruteForceValid(model, tc.test));
+			suite.add(tc.test);
+		}
+		assertEquals(0, TestModels.uncovered(model, suite));
+	}
+
+	/**
+	 * Return an IPOG generator that sleeps for the given milliseconds before
+	 * it starts its budget.
+	 */
+	private static IPOG slowIPOG(long millis) {
+		return new IPOG() {
+			@Override
+			public void generation(CTModel model, TestSuite ts) {
+				try {
+					Thread.sleep(millis);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				super.generation(model, ts);
+			}
+		};
+	}
+
+	@Test
+	public void generationStopsAtTheTimeLimit() {
+		SA sa = new SA(false, 3);
+		sa.setTimeLimit(300, TimeUnit.MILLISECONDS);
+		long start = System.nanoTime();
+		TestSuite ts = new TestSuite();
+		// a model on which the search is still going at the time limit, and
+		// which is small enough for the coverage oracle
+		CTModel model = TestModels.constrained(2, 12, 3, 3, new ValidityChecker());
+		sa.generation(model, ts);
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+		assertTrue(sa.getBudget().isExhausted());
+		assertFalse(sa.getBudget().isCancelled());
+
+		// the best covering array so far is returned
+		assertFalse(ts.suite.isEmpty());
+		List<int[]> suite = new ArrayList<>();
+		for (TestCase tc : ts.suite) {
+			assertTrue(TestModels.bruteForceValid(model, tc.test));
+			suite.add(tc.test);
+		}
+		assertEquals(0, TestModels.uncovered(model, suite));
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.neo.generator;
+
+import com.neo.TestModels;
+import com.neo.combinatorial.CTModel;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ConflictCounterTests {
+
+	@Test
+	public void deltaEqualsDifferenceOfCounts() {
+		Random random = new Random(3);
+		for (long seed = 0; seed < 20; seed++) {
+			CTModel model = TestModels.constrained(seed, 7, 3, 2, new ValidityChecker());
+			ConflictCounter counter = new ConflictCounter(model);
+			for (int i = 0; i < 300; i++) {
+				// the test cases may be invalid, as in the Tolerate technique
+				int[] test = TestModels.randomTest(random, model, i % 3 == 0 ? 0.2 : 0);
+				int column = random.nextInt(model.parameter);
+				int oldValue = test[column];
+				int newValue = random.nextInt(model.value[column]);
+
+				int before = counter.violateConstraintNum(test);
+				test[column] = newValue;
+				int after = counter.violateConstraintNum(test);
+				// the value of test[column] itself is ignored
+				test[column] = random.nextInt(model.value[column]);
+				assertEquals(after - before, counter.violationDelta(test, column, oldValue, newValue));
+			}
+		}
+	}
+
+	@Test
+	public void suiteCountIsTheSumOfTestCounts() {
+		Random random = new Random(5);
+		CTModel model = TestModels.constrained(1, 7, 3, 2, new ValidityChecker());
+		ConflictCounter counter = new ConflictCounter(model);
+		ArrayList<int[]> suite = new ArrayList<>();
+		int sum = 0;
+		for (int i = 0; i < 50; i++) {
+			int[] test = TestModels.randomTest(random, model, 0);
+			suite.add(test);
+			sum += counter.violateConstraintNum(test);
+		}
+		assertEquals(sum, counter.violateConstraintNum(suite));
+	}
+
+}
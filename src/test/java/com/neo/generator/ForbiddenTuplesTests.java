@@ -0,0 +1,57 @@
+package com.neo.generator;
+
+import com.neo.TestModels;
+import com.neo.combinatorial.CTModel;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ForbiddenTuplesTests {
+
+	@Test
+	public void columnCheckEqualsFullCheckOfValidTests() {
+		Random random = new Random(7);
+		int checked = 0;
+		for (long seed = 0; seed < 20; seed++) {
+			CTModel model = TestModels.constrained(seed, 6, 3, 2, new ValidityChecker());
+			ForbiddenTuples MFT = model.checker.MFT;
+			for (int i = 0; i < 200; i++) {
+				int[] test = TestModels.randomTest(random, model, i % 2 == 0 ? 0 : 0.3);
+				if (!MFT.isValid(test))
+					continue;
+				// change each column of a valid test case to each value, or unfix it
+				for (int column = 0; column < model.parameter; column++) {
+					int previous = test[column];
+					for (int v = -1; v < model.value[column]; v++) {
+						test[column] = v;
+						assertEquals(MFT.isValid(test), MFT.isValid(test, column));
+						checked++;
+					}
+					test[column] = previous;
+				}
+			}
+		}
+		assertTrue(checked > 1000);
+	}
+
+	@Test
+	public void countsMatchTheTuplesInTests() {
+		Random random = new Random(11);
+		for (long seed = 0; seed < 10; seed++) {
+			CTModel model = TestModels.constrained(seed, 6, 3, 2, new ValidityChecker());
+			ForbiddenTuples MFT = model.checker.MFT;
+			for (int i = 0; i < 200; i++) {
+				int[] test = TestModels.randomTest(random, model, 0);
+				assertEquals(MFT.count(test) == 0, MFT.isValid(test));
+				int column = random.nextInt(model.parameter);
+				int v = random.nextInt(model.value[column]);
+				int[] changed = test.clone();
+				changed[column] = v;
+				assertEquals(MFT.count(changed, column), MFT.count(test, column, v));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,48 @@
+package com.neo.generator;
+
+import com.neo.TestModels;
+import com.neo.combinatorial.CTModel;
+import com.neo.combinatorial.TestCase;
+import com.neo.combinatorial.TestSuite;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class IPOGTests {
+
+	@Test
+	public void constrainedModelsAreCoveredByValidTests() {
+		for (long seed = 0; seed < 10; seed++) {
+			for (int t = 2; t <= 3; t++) {
+				assertCoveringArray(TestModels.constrained(seed, 8, 3, t, new ValidityChecker()), seed);
+				assertCoveringArray(TestModels.constrained(seed, 8, 3, t, new SATChecker()), seed);
+			}
+		}
+	}
+
+	@Test
+	public void unsatisfiableModelGivesAnEmptySuite() {
+		TestSuite ts = new TestSuite();
+		new IPOG().generation(TestModels.unsatisfiable(new ValidityChecker()), ts);
+		assertTrue(ts.suite.isEmpty());
+	}
+
+	private static void assertCoveringArray(CTModel model, long seed) {
+		IPOG gen = new IPOG();
+		gen.setSeed(seed);
+		TestSuite ts = new TestSuite();
+		gen.generation(model, ts);
+		List<int[]> suite = new ArrayList<>();
+		for (TestCase tc : ts.suite) {
+			assertFalse(Arrays.toString(tc.test), Arrays.stream(tc.test).anyMatch(v -> v == -1));
+			assertTrue(Arrays.toString(tc.test), TestModels.bruteForceValid(model, tc.test));
+			suite.add(tc.test);
+		}
+		assertEquals(0, TestModels.uncovered(model, suite));
+	}
+
+}
@@ -0,0 +1,167 @@
+package com.neo.generator;
+
+import com.neo.TestModels;
+import com.neo.combinatorial.CTModel;
+import com.neo.combinatorial.TestCase;
+import com.neo.combinatorial.TestSuite;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ParallelSATests {
+
+	@Test
+	public void portfolioGivesACoveringArray() {
+		for (boolean tolerate : new boolean[]{false, true}) {
+			for (long seed = 0; seed < 3; seed++)
+				assertCoveringArray(new ParallelSA(3, tolerate), seed);
+		}
+		assertNoChainThreads();
+	}
+
+	@Test
+	public void bracketedSearchGivesACoveringArray() {
+		for (boolean tolerate : new boolean[]{false, true}) {
+			for (long seed = 0; seed < 3; seed++)
+				assertCoveringArray(new ParallelSA(3, tolerate, true), seed);
+		}
+		assertNoChainThreads();
+	}
+
+	@Test
+	public void nextSizeSpreadsProbesOverTheInterval() {
+		ParallelSA sa = new ParallelSA(3, false, true);
+		Map<Integer, AtomicBoolean> running = new HashMap<>();
+		// N = (10 + 2 * 30) / 3 = 23, and d = 21 / 4 = 5
+		assertEquals(23, sa.nextSize(10, 30, running));
+		running.put(23, new AtomicBoolean());
+		assertEquals(18, sa.nextSize(10, 30, running));
+		running.put(18, new AtomicBoolean());
+		assertEquals(13, sa.nextSize(10, 30, running));
+		running.put(13, new AtomicBoolean());
+		// then the sizes that are not probed yet, from the upper bound
+		assertEquals(30, sa.nextSize(10, 30, running));
+
+		running.clear();
+		running.put(5, new AtomicBoolean());
+		running.put(6, new AtomicBoolean());
+		assertEquals(-1, sa.nextSize(5, 6, running));
+		assertEquals(7, sa.nextSize(5, 7, running));
+		assertEquals(-1, sa.nextSize(8, 7, running));
+	}
+
+	@Test
+	public void abortedProbesDoNotRaiseTheLowerBound() {
+		// a covering array exists for N >= K. The probes of K take long, so that
+		// larger probes succeed first and abort each other.
+		int K = 9;
+		AtomicInteger aborted = new AtomicInteger();
+		List<int[]> probes = Collections.synchronizedList(new ArrayList<>());
+		ParallelSA sa = new ParallelSA(3, false, true) {
+			@Override
+			SA newChain() {
+				return new Scripted(K, aborted);
+			}
+		};
+		sa.setProgressListener(new ProgressListener() {
+			@Override
+			public void onProbe(int N, int lower, int upper) {
+				probes.add(new int[]{N, lower, upper});
+			}
+		});
+		TestSuite ts = new TestSuite();
+		sa.generation(new CTModel(10, new int[]{3, 3, 3, 3, 3, 3, 3, 3, 3, 3}, 2, new ArrayList<>()), ts);
+
+		assertEquals(K, ts.suite.size());
+		assertTrue(aborted.get() > 0);
+		for (int[] probe : probes) {
+			assertTrue(probe[1] <= probe[0] && probe[0] <= probe[2]);
+			assertTrue("lower bound " + probe[1] + " is above " + K, probe[1] <= K);
+		}
+		assertNoChainThreads();
+	}
+
+	/**
+	 * A chain that succeeds for N >= K after (N - K) * 20 ms, or after 300 ms
+	 * for K, and fails for N < K after 5 ms. It returns nothing once stopped.
+	 */
+	private static class Scripted extends SA {
+		private final int K;
+		private final AtomicInteger aborted;
+
+		Scripted(int K, AtomicInteger aborted) {
+			super(false);
+			this.K = K;
+			this.aborted = aborted;
+		}
+
+		@Override
+		void prepare(CTModel model) {
+		}
+
+		@Override
+		long record(CTModel model, ArrayList<int[]> A) {
+			return 0;
+		}
+
+		@Override
+		ArrayList<int[]> innerSearch(CTModel model, int N, AtomicBoolean stop) {
+			long time = N < K ? 5 : N == K ? 300 : (N - K) * 20;
+			long deadline = System.currentTimeMillis() + time;
+			while (System.currentTimeMillis() < deadline) {
+				if (stop != null && stop.get()) {
+					aborted.incrementAndGet();
+					return new ArrayList<>();
+				}
+				try {
+					Thread.sleep(1);
+				} catch (InterruptedException e) {
+					return new ArrayList<>();
+				}
+			}
+			ArrayList<int[]> A = new ArrayList<>();
+			if (N >= K) {
+				for (int i = 0; i < N; i++)
+					A.add(new int[model.parameter]);
+			}
+			return A;
+		}
+	}
+
+	private static void assertCoveringArray(ParallelSA sa, long seed) {
+		CTModel model = TestModels.constrained(seed, 8, 3, 2, new ValidityChecker());
+		sa.setSeed(seed);
+		TestSuite ts = new TestSuite();
+		sa.generation(model, ts);
+		assertFalse(ts.suite.isEmpty());
+		List<int[]> suite = new ArrayList<>();
+		for (TestCase tc : ts.suite) {
+			assertTrue(TestModels.bruteForceValid(model, tc.test));
+			suite.add(tc.test);
+		}
+		assertEquals(0, TestModels.uncovered(model, suite));
+	}
+
+	private static void assertNoChainThreads() {
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (!thread.getName().startsWith(ParallelSA.THREAD_NAME))
+				continue;
+			// a terminated pool may still have a thread that is about to exit
+			try {
+				thread.join(1000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			assertFalse(thread.getName(), thread.isAlive());
+		}
+	}
+
+}
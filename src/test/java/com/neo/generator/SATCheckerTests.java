@@ -0,0 +1,62 @@
+package com.neo.generator;
+
+import com.neo.TestModels;
+import com.neo.combinatorial.CTModel;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class SATCheckerTests {
+
+	@Test
+	public void answersMatchTheMFTChecker() {
+		Random random = new Random(23);
+		for (long seed = 0; seed < 30; seed++) {
+			CTModel mft = TestModels.constrained(seed, 7, 3, 2, new ValidityChecker());
+			CTModel sat = TestModels.constrained(seed, 7, 3, 2, new SATChecker(64));
+			for (int i = 0; i < 300; i++) {
+				int[] test = TestModels.randomTest(random, mft, i % 3 == 0 ? 0 : 0.5);
+				int[] copy = test.clone();
+				assertEquals("seed " + seed + ", test " + Arrays.toString(test),
+						mft.checker.isValid(test), sat.checker.isValid(test));
+				// the cached answer is the same, and the test case is not modified
+				assertEquals(mft.checker.isValid(test), sat.checker.isValid(test));
+				assertArrayEquals(copy, test);
+			}
+		}
+	}
+
+	@Test
+	public void unsatisfiableModelForbidsEverything() {
+		CTModel model = TestModels.unsatisfiable(new SATChecker());
+		int[] empty = new int[model.parameter];
+		Arrays.fill(empty, -1);
+		assertFalse(model.checker.isValid(empty));
+		assertFalse(model.checker.isValid(new int[]{1, 2, 1, 1}));
+	}
+
+	@Test
+	public void parallelAnswersMatchSequentialOnes() {
+		CTModel mft = TestModels.constrained(5, 10, 3, 2, new ValidityChecker());
+		CTModel sat = TestModels.constrained(5, 10, 3, 2, new SATChecker(16));
+		Random random = new Random(29);
+		List<int[]> tests = new ArrayList<>();
+		for (int i = 0; i < 4000; i++)
+			tests.add(TestModels.randomTest(random, mft, 0.4));
+
+		boolean[] expected = new boolean[tests.size()];
+		for (int i = 0; i < tests.size(); i++)
+			expected[i] = mft.checker.isValid(tests.get(i));
+		boolean[] actual = new boolean[tests.size()];
+		IntStream.range(0, tests.size()).parallel()
+				.forEach(i -> actual[i] = sat.checker.isValid(tests.get(i)));
+		assertArrayEquals(expected, actual);
+	}
+
+}
@@ -0,0 +1,235 @@
+package com.neo.generator;
+
+import com.neo.TestModels;
+import com.neo.combinatorial.CTModel;
+import com.neo.combinatorial.TestCase;
+import com.neo.combinatorial.TestSuite;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SATests {
+
+	@Test
+	public void sameSeedGivesTheSameSuite() {
+		for (boolean tolerate : new boolean[]{false, true}) {
+			for (long seed = 0; seed < 3; seed++) {
+				List<int[]> a = run(new SA(tolerate, 42), seed);
+				List<int[]> b = run(new SA(tolerate, 42), seed);
+				assertFalse(a.isEmpty());
+				assertSameSuite(a, b);
+				assertEquals(0, TestModels.uncovered(model(seed), a));
+			}
+		}
+	}
+
+	@Test
+	public void columnCoverageDeltaMatchesRecount() {
+		Random random = new Random(11);
+		for (int t = 2; t <= 3; t++) {
+			CTModel unconstrained = new CTModel(7, new int[]{2, 3, 3, 2, 4, 3, 2}, t, new ArrayList<>());
+			CTModel constrained = TestModels.constrained(t, 7, 3, t, new ValidityChecker());
+			for (CTModel model : new CTModel[]{unconstrained, constrained}) {
+				model.initialization();
+				model.removeInvalidCombinations();
+				SA sa = new SA(false, 1);
+				sa.prepare(model);
+				int N = 12;
+				sa.initCover(N);
+				ArrayList<int[]> suite = new ArrayList<>();
+				long covered = 0;
+				for (int i = 0; i < N; i++) {
+					// the rows may be invalid, as in the Tolerate technique
+					int[] test = TestModels.randomTest(random, model, 0);
+					suite.add(test);
+					covered += sa.updateTestCaseCoverage(model, test, 1);
+				}
+				long uncovered = model.getCombAll() - covered;
+				assertEquals(recount(model, suite), uncovered);
+
+				for (int move = 0; move < 500; move++) {
+					int[] test = suite.get(random.nextInt(N));
+					int column = random.nextInt(model.parameter);
+					int previous = test[column];
+					int symbol = random.nextInt(model.value[column]);
+					long loss = sa.updateTestCaseCoverage(model, test, column, 0);
+					test[column] = symbol;
+					long gain = sa.updateTestCaseCoverage(model, test, column, 1);
+					if (random.nextBoolean()) {
+						uncovered -= gain - loss;
+					} else {
+						// a rejected move is rolled back
+						sa.updateTestCaseCoverage(model, test, column, 0);
+						test[column] = previous;
+						sa.updateTestCaseCoverage(model, test, column, 1);
+					}
+					assertEquals("move " + move, recount(model, suite), uncovered);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void repeatedGenerationRestartsTheRandomStream() {
+		SA sa = new SA(false, 7);
+		assertSameSuite(run(sa, 1), run(sa, 1));
+	}
+
+	@Test
+	public void incompleteInitialSuiteStillGivesACoveringArray() {
+		for (SA sa : new SA[]{new SA(false, 5), new ParallelSA(2, false)}) {
+			sa.setInitialGenerator(new Incomplete());
+			List<int[]> suite = run(sa, 2);
+			assertFalse(suite.isEmpty());
+			assertEquals(0, TestModels.uncovered(model(2), suite));
+		}
+	}
+
+	@Test
+	public void modelIsInitializedOnce() {
+		for (Generator initial : new Generator[]{null, new IPOG(), new AETG()}) {
+			int[] calls = new int[2];
+			CTModel model = new CTModel(8, new int[]{3, 3, 3, 3, 3, 3, 3, 3}, 2,
+					TestModels.randomConstraints(new Random(4), new int[]{3, 3, 3, 3, 3, 3, 3, 3}, 6)) {
+				@Override
+				public void initialization() {
+					calls[0]++;
+					super.initialization();
+				}
+
+				@Override
+				public void removeInvalidCombinations() {
+					calls[1]++;
+					super.removeInvalidCombinations();
+				}
+			};
+			SA sa = new SA(false, 9);
+			if (initial != null)
+				sa.setInitialGenerator(initial);
+			TestSuite ts = new TestSuite();
+			sa.generation(model, ts);
+			assertArrayEquals(new int[]{1, 1}, calls);
+			List<int[]> suite = new ArrayList<>();
+			for (TestCase tc : ts.suite)
+				suite.add(tc.test);
+			assertEquals(0, TestModels.uncovered(model, suite));
+		}
+	}
+
+	@Test
+	public void optimalGreedySuiteIsReturnedWithoutSearch() {
+		// with t equal to the number of parameters, a covering array has all valid tests
+		for (ValidityChecker checker : new ValidityChecker[]{new ValidityChecker(), new SATChecker()}) {
+			CTModel model = TestModels.constrained(3, 4, 3, 4, checker);
+			int[] probes = new int[1];
+			SA sa = new SA(false, 1);
+			sa.setProgressListener(new ProgressListener() {
+				@Override
+				public void onProbe(int N, int lower, int upper) {
+					probes[0]++;
+				}
+			});
+			TestSuite ts = new TestSuite();
+			sa.generation(model, ts);
+			assertEquals(0, probes[0]);
+			assertEquals(SA.coveringLowerBound(model), ts.suite.size());
+			assertEquals(model.getCombAll(), ts.suite.size());
+		}
+	}
+
+	@Test
+	public void coveringLowerBoundIsTheProductBoundWithoutConstraints() {
+		CTModel model = new CTModel(5, new int[]{2, 4, 3, 2, 3}, 2, new ArrayList<>());
+		model.initialization();
+		model.removeInvalidCombinations();
+		assertEquals(12, SA.coveringLowerBound(model));
+	}
+
+	/**
+	 * Count the valid combinations that no row covers, from scratch.
+	 */
+	private static long recount(CTModel model, List<int[]> suite) {
+		long count = 0;
+		for (int row = 0; row < model.getPcNumber(); row++) {
+			int[] position = model.getParameterCombination(row);
+			for (int column = 0; column < model.getCombination().getColumnNumber(row); column++) {
+				int[] schema = model.schema(row, column);
+				if (!model.isValid(position, schema))
+					continue;
+				boolean covered = false;
+				for (int i = 0; i < suite.size() && !covered; i++) {
+					covered = true;
+					for (int k = 0; k < position.length; k++)
+						covered &= suite.get(i)[position[k]] == schema[k];
+				}
+				if (!covered)
+					count++;
+			}
+		}
+		return count;
+	}
+
+	private static CTModel model(long seed) {
+		return TestModels.constrained(seed, 8, 3, 2, new ValidityChecker());
+	}
+
+	private static List<int[]> run(SA sa, long seed) {
+		TestSuite ts = new TestSuite();
+		sa.generation(model(seed), ts);
+		List<int[]> ret = new ArrayList<>();
+		for (TestCase tc : ts.suite)
+			ret.add(tc.test);
+		return ret;
+	}
+
+	/**
+	 * An initial generator that leaves combinations uncovered, by dropping
+	 * every other row of IPOG.
+	 */
+	private static class Incomplete implements Generator {
+		private final IPOG ipog = new IPOG();
+
+		@Override
+		public void generation(CTModel model, TestSuite ts) {
+			TestSuite all = new TestSuite();
+			ipog.generation(model, all);
+			for (int i = 0; i < all.suite.size(); i += 2)
+				ts.suite.add(all.suite.get(i));
+		}
+
+		@Override
+		public void setSeed(long seed) {
+			ipog.setSeed(seed);
+		}
+
+		@Override
+		public long getSeed() {
+			return ipog.getSeed();
+		}
+
+		@Override
+		public void setProgressListener(ProgressListener listener) {
+		}
+
+		@Override
+		public void setBudget(Budget budget) {
+			ipog.setBudget(budget);
+		}
+
+		@Override
+		public Budget getBudget() {
+			return ipog.getBudget();
+		}
+	}
+
+	private static void assertSameSuite(List<int[]> expected, List<int[]> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++)
+			assertArrayEquals("test " + i, expected.get(i), actual.get(i));
+	}
+
+}
@@ -0,0 +1,85 @@
+package com.neo.generator;
+
+import com.neo.TestModels;
+import com.neo.combinatorial.CTModel;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ValidityCheckerTests {
+
+	@Test
+	public void partialTestsMatchBruteForce() {
+		Random random = new Random(17);
+		// the invalid tests that violate no original constraint, which are
+		// only detected by the derived tuples
+		int implicit = 0;
+		for (long seed = 0; seed < 30; seed++) {
+			CTModel model = TestModels.constrained(seed, 6, 3, 2, new ValidityChecker());
+			for (int i = 0; i < 300; i++) {
+				int[] test = TestModels.randomTest(random, model, i % 3 == 0 ? 0 : 0.5);
+				boolean valid = TestModels.bruteForceValid(model, test);
+				assertEquals("seed " + seed + ", test " + Arrays.toString(test),
+						valid, model.checker.isValid(test));
+				if (!valid && TestModels.violations(model, test) == 0)
+					implicit++;
+			}
+		}
+		assertTrue(implicit > 0);
+	}
+
+	@Test
+	public void derivedTuplesAreMinimalAndForbidden() {
+		for (long seed = 0; seed < 30; seed++) {
+			CTModel model = TestModels.constrained(seed, 6, 3, 2, new ValidityChecker());
+			ForbiddenTuples MFT = model.checker.MFT;
+			int[][] tuples = new int[MFT.size()][];
+			for (int i = 0; i < MFT.size(); i++) {
+				tuples[i] = toTest(model, MFT.getDisjunction(i));
+				assertFalse("seed " + seed + ", tuple " + Arrays.toString(tuples[i]),
+						TestModels.bruteForceValid(model, tuples[i]));
+			}
+			for (int i = 0; i < tuples.length; i++)
+				for (int j = 0; j < tuples.length; j++)
+					if (i != j)
+						assertFalse("seed " + seed + ", tuple " + i + " contains tuple " + j,
+								contains(tuples[i], tuples[j]));
+		}
+	}
+
+	@Test
+	public void unsatisfiableModelForbidsEverything() {
+		CTModel model = TestModels.unsatisfiable(new ValidityChecker());
+		int[] empty = new int[model.parameter];
+		Arrays.fill(empty, -1);
+		assertFalse(model.checker.isValid(empty));
+		Random random = new Random(1);
+		for (int i = 0; i < 100; i++)
+			assertFalse(model.checker.isValid(TestModels.randomTest(random, model, 0.5)));
+	}
+
+	/**
+	 * Convert a disjunction of negative literals into a partial test case.
+	 */
+	private static int[] toTest(CTModel model, int[] disjunction) {
+		int[] test = new int[model.parameter];
+		Arrays.fill(test, -1);
+		for (int l : disjunction)
+			for (int p = 0; p < model.parameter; p++)
+				for (int v = 0; v < model.value[p]; v++)
+					if (model.relation[p][v] == -l)
+						test[p] = v;
+		return test;
+	}
+
+	private static boolean contains(int[] test, int[] tuple) {
+		for (int p = 0; p < test.length; p++)
+			if (tuple[p] != -1 && tuple[p] != test[p])
+				return false;
+		return true;
+	}
+
+}
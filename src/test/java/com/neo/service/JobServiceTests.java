@@ -0,0 +1,189 @@
+package com.neo.service;
+
+import com.neo.TestModels;
+import com.neo.combinatorial.TestCase;
+import com.neo.combinatorial.TestSuite;
+import com.neo.controller.DockerController;
+import com.neo.domain.Result;
+import com.neo.generator.SA;
+import com.neo.generator.ValidityChecker;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+public class JobServiceTests {
+
+	private final ArrayList<JobService> services = new ArrayList<>();
+
+	@After
+	public void shutdown() {
+		for (JobService service : services)
+			service.shutdown();
+	}
+
+	@Test
+	public void submittedJobRunsToItsResult() throws Exception {
+		JobService service = service(1, 4, 3600);
+		CountDownLatch release = new CountDownLatch(1);
+		Result result = new Result(new ArrayList<>(), 0, 0);
+		Job job = service.submit(running -> {
+			await(release);
+			return result;
+		});
+		assertSame(job, service.get(job.getId()));
+		waitUntil(() -> job.getStatus() == Job.Status.RUNNING);
+		assertNull(job.getResult());
+		assertFalse(job.hasFinished());
+
+		release.countDown();
+		waitUntil(job::hasFinished);
+		assertEquals(Job.Status.DONE, job.getStatus());
+		assertSame(result, job.getResult());
+		assertTrue(job.getFinished() >= job.getStarted());
+		assertNull(service.get("no such job"));
+	}
+
+	@Test
+	public void failedJobKeepsItsError() throws Exception {
+		JobService service = service(1, 4, 3600);
+		Job job = service.submit(running -> {
+			throw new IllegalArgumentException("bad model");
+		});
+		waitUntil(job::hasFinished);
+		assertEquals(Job.Status.FAILED, job.getStatus());
+		assertTrue(job.getError().contains("bad model"));
+		assertNull(job.getResult());
+	}
+
+	@Test
+	public void jobCancelledInTheQueueIsNotStarted() throws Exception {
+		JobService service = service(1, 4, 3600);
+		CountDownLatch release = new CountDownLatch(1);
+		Job first = service.submit(running -> {
+			await(release);
+			return null;
+		});
+		AtomicBoolean started = new AtomicBoolean();
+		Job second = service.submit(running -> {
+			started.set(true);
+			return null;
+		});
+		assertEquals(Job.Status.QUEUED, second.getStatus());
+		second.cancel();
+		release.countDown();
+
+		waitUntil(() -> first.hasFinished() && second.hasFinished());
+		assertEquals(Job.Status.DONE, first.getStatus());
+		assertEquals(Job.Status.CANCELLED, second.getStatus());
+		assertNull(second.getResult());
+		assertFalse(started.get());
+	}
+
+	@Test
+	public void cancelledGenerationKeepsTheBestSuite() throws Exception {
+		JobService service = service(1, 4, 3600);
+		Job job = service.submit(running -> {
+			SA sa = new SA(false, 1);
+			running.attach(sa);
+			TestSuite ts = new TestSuite();
+			sa.generation(TestModels.constrained(1, 40, 4, 3, new ValidityChecker()), ts);
+			ArrayList<int[]> suite = new ArrayList<>();
+			for (TestCase tc : ts.suite)
+				suite.add(tc.test);
+			return new Result(suite, running.getElapsed(), suite.size(), sa.getSeed());
+		});
+		// cancel after the greedy covering array is reported
+		waitUntil(() -> job.getBestSize() > 0);
+		job.cancel();
+		waitUntil(job::hasFinished);
+		assertEquals(Job.Status.CANCELLED, job.getStatus());
+		assertTrue(job.getResult().getSize() > 0);
+		assertTrue(job.getResult().getSize() <= job.getBestSize());
+		assertEquals(1, job.getResult().getSeed());
+	}
+
+	@Test
+	public void fullQueueRejectsJobsWith503() throws Exception {
+		JobService service = service(1, 1, 3600);
+		CountDownLatch release = new CountDownLatch(1);
+		// one running job and one queued job
+		Job running = service.submit(job -> {
+			await(release);
+			return null;
+		});
+		Job queued = service.submit(job -> null);
+		try {
+			service.submit(job -> null);
+			fail();
+		} catch (RejectedExecutionException expected) {
+		}
+
+		DockerController controller = new DockerController();
+		ReflectionTestUtils.setField(controller, "jobService", service);
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/jobs");
+		request.setContent("{}".getBytes("UTF-8"));
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, controller.submit(request).getStatusCode());
+
+		release.countDown();
+		waitUntil(() -> running.hasFinished() && queued.hasFinished());
+		assertEquals(Job.Status.DONE, queued.getStatus());
+	}
+
+	@Test
+	public void finishedJobsAreEvictedAfterTTL() throws Exception {
+		JobService service = service(2, 4, 0);
+		CountDownLatch release = new CountDownLatch(1);
+		Job finished = service.submit(job -> null);
+		Job running = service.submit(job -> {
+			await(release);
+			return null;
+		});
+		waitUntil(() -> finished.hasFinished() && running.getStatus() == Job.Status.RUNNING);
+		Thread.sleep(5);
+		service.evict();
+		assertNull(service.get(finished.getId()));
+		assertSame(running, service.get(running.getId()));
+		release.countDown();
+
+		// a finished job is kept within TTL
+		JobService kept = service(1, 4, 3600);
+		Job job = kept.submit(j -> null);
+		waitUntil(job::hasFinished);
+		kept.evict();
+		assertSame(job, kept.get(job.getId()));
+	}
+
+	private JobService service(int threads, int capacity, long ttl) {
+		JobService service = new JobService(threads, capacity, ttl);
+		services.add(service);
+		return service;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 30000;
+		while (!condition.getAsBoolean()) {
+			assertTrue("timed out", System.currentTimeMillis() < deadline);
+			Thread.sleep(5);
+		}
+	}
+
+}
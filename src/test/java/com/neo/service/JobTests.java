@@ -0,0 +1,101 @@
+package com.neo.service;
+
+import org.junit.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class JobTests {
+
+	@Test
+	public void concurrentSolutionsKeepTheSmallest() {
+		for (int trial = 0; trial < 20; trial++) {
+			Job job = new Job("job", Runnable::run);
+			List<Integer> sizes = new ArrayList<>();
+			for (int i = 0; i < 200; i++)
+				sizes.add(10 + i);
+			Collections.shuffle(sizes);
+			sizes.parallelStream().forEach(size -> job.onSolution(suite(size)));
+			assertEquals(10, job.getBestSize());
+			job.onSolution(suite(11));
+			assertEquals(10, job.getBestSize());
+		}
+	}
+
+	@Test
+	public void slowClientDoesNotStallTheJob() throws Exception {
+		ExecutorService publisher = Executors.newCachedThreadPool();
+		try {
+			Job job = new Job("job", publisher);
+			CountDownLatch release = new CountDownLatch(1);
+			List<String> received = Collections.synchronizedList(new ArrayList<>());
+			List<Object> data = Collections.synchronizedList(new ArrayList<>());
+			SseEmitter slow = new SseEmitter() {
+				@Override
+				public void send(SseEventBuilder builder) throws IOException {
+					try {
+						release.await(10, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					List<ResponseBodyEmitter.DataWithMediaType> event = new ArrayList<>(builder.build());
+					data.add(event.get(1).getData());
+					received.add(event.get(0).getData().toString());
+				}
+			};
+			job.subscribe(slow);
+
+			long start = System.nanoTime();
+			job.start();
+			IntStream.range(0, 100).forEach(round -> job.onRound(10, round, 5));
+			job.onSolution(suite(10));
+			job.complete(null);
+			assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+			assertTrue(received.isEmpty());
+
+			// the events are then sent in order: the initial status, running,
+			// 100 rounds, the solution and the final status
+			release.countDown();
+			long deadline = System.currentTimeMillis() + 10000;
+			while (received.size() < 104 && System.currentTimeMillis() < deadline)
+				Thread.sleep(5);
+			assertEquals(104, received.size());
+			for (int i = 0; i < received.size(); i++) {
+				String expected = i == 0 || i == 1 || i == 103 ? "status" : i == 102 ? "solution" : "progress";
+				assertTrue(i + ": " + received.get(i), received.get(i).contains("event:" + expected));
+			}
+
+			// each event carries the state when it was published, not when it was sent
+			assertEquals(Job.Status.QUEUED, ((Job.State) data.get(0)).getStatus());
+			assertEquals(Job.Status.RUNNING, ((Job.State) data.get(1)).getStatus());
+			for (int round = 0; round < 100; round++) {
+				Job.State state = (Job.State) data.get(round + 2);
+				assertEquals(Job.Status.RUNNING, state.getStatus());
+				assertEquals(round, state.getRound());
+			}
+			assertEquals(Job.Status.DONE, ((Job.State) data.get(103)).getStatus());
+			assertEquals(10, ((Job.State) data.get(103)).getBestSize());
+		} finally {
+			publisher.shutdownNow();
+		}
+	}
+
+	private static ArrayList<int[]> suite(int size) {
+		ArrayList<int[]> suite = new ArrayList<>();
+		for (int i = 0; i < size; i++)
+			suite.add(new int[]{i});
+		return suite;
+	}
+
+}
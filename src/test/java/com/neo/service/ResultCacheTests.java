@@ -0,0 +1,142 @@
+package com.neo.service;
+
+import com.neo.domain.Result;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class ResultCacheTests {
+
+	private Path directory;
+
+	@After
+	public void deleteDirectory() {
+		if (directory == null)
+			return;
+		File[] files = directory.toFile().listFiles();
+		if (files != null)
+			for (File file : files)
+				file.delete();
+		directory.toFile().delete();
+	}
+
+	@Test
+	public void leastRecentlyUsedEntryIsEvicted() {
+		ResultCache cache = new ResultCache(2, Long.MAX_VALUE, 3600, "");
+		cache.put("a", result(1, 3));
+		cache.put("b", result(2, 3));
+		assertNotNull(cache.get("a"));
+		cache.put("c", result(3, 3));
+
+		assertNull(cache.get("b"));
+		assertEquals(1, cache.get("a").getSeed());
+		assertEquals(3, cache.get("c").getSeed());
+		assertEquals(Long.valueOf(1), cache.getStats().get("evictions"));
+		assertEquals(Long.valueOf(2), cache.getStats().get("entries"));
+	}
+
+	@Test
+	public void expiredEntryIsRemoved() throws InterruptedException {
+		ResultCache cache = new ResultCache(10, Long.MAX_VALUE, 0, "");
+		cache.put("a", result(1, 3));
+		Thread.sleep(5);
+		assertNull(cache.get("a"));
+		assertEquals(Long.valueOf(0), cache.getStats().get("entries"));
+		assertEquals(Long.valueOf(0), cache.getStats().get("bytes"));
+		assertEquals(Long.valueOf(1), cache.getStats().get("misses"));
+	}
+
+	@Test
+	public void entriesAreBoundedByBytes() {
+		// each suite of 10 tests of 4 values is estimated as 64 + 10 * 32 bytes
+		ResultCache cache = new ResultCache(100, 1000, 3600, "");
+		cache.put("a", result(1, 10));
+		cache.put("b", result(2, 10));
+		assertEquals(Long.valueOf(768), cache.getStats().get("bytes"));
+		cache.get("a");
+		cache.put("c", result(3, 10));
+		assertNull(cache.get("b"));
+		assertNotNull(cache.get("a"));
+		assertNotNull(cache.get("c"));
+		assertEquals(Long.valueOf(768), cache.getStats().get("bytes"));
+
+		// a result larger than the bound is not cached, and evicts nothing
+		cache.put("d", result(4, 40));
+		assertNull(cache.get("d"));
+		assertNotNull(cache.get("a"));
+		assertNotNull(cache.get("c"));
+	}
+
+	@Test
+	public void cachedResultCannotBeModifiedByCallers() {
+		ResultCache cache = new ResultCache(10, Long.MAX_VALUE, 3600, "");
+		Result result = result(1, 3);
+		cache.put("a", result);
+		result.getTestsuite().get(0)[0] = 9;
+		result.getTestsuite().clear();
+
+		Result cached = cache.get("a");
+		assertEquals(3, cached.getTestsuite().size());
+		assertEquals(0, cached.getTestsuite().get(0)[0]);
+		cached.getTestsuite().get(1)[0] = 9;
+		cached.setSize(0);
+		assertEquals(1, cache.get("a").getTestsuite().get(1)[0]);
+		assertEquals(3, cache.get("a").getSize());
+	}
+
+	@Test
+	public void persistedEntriesSurviveRestart() throws IOException {
+		directory = Files.createTempDirectory("cache");
+		ResultCache cache = new ResultCache(2, Long.MAX_VALUE, 3600, directory.toString());
+		// concurrent puts, where the eldest ones are evicted
+		IntStream.range(0, 20).parallel().forEach(i -> cache.put("k" + i, result(i, 3)));
+		String[] files = directory.toFile().list();
+		Arrays.sort(files);
+		assertEquals(2, files.length);
+		for (String file : files)
+			assertTrue(file, file.endsWith(".json"));
+
+		ResultCache restarted = new ResultCache(2, Long.MAX_VALUE, 3600, directory.toString());
+		assertEquals(Long.valueOf(2), restarted.getStats().get("entries"));
+		for (String file : files) {
+			String key = file.substring(0, file.length() - ".json".length());
+			Result result = restarted.get(key);
+			assertEquals(cache.get(key).getSeed(), result.getSeed());
+			assertArrayEquals(new int[]{2, 1, 0, 3}, result.getTestsuite().get(2));
+		}
+	}
+
+	@Test
+	public void replacedEntriesKeepTheirFiles() throws IOException {
+		directory = Files.createTempDirectory("cache");
+		ResultCache cache = new ResultCache(4, Long.MAX_VALUE, 3600, directory.toString());
+		// concurrent puts that replace the same keys, after which each file
+		// holds the cached result of its key
+		IntStream.range(0, 400).parallel().forEach(i -> cache.put("k" + i % 4, result(i, 3)));
+		assertEquals(4, directory.toFile().list().length);
+
+		ResultCache restarted = new ResultCache(4, Long.MAX_VALUE, 3600, directory.toString());
+		for (int i = 0; i < 4; i++)
+			assertEquals(cache.get("k" + i).getSeed(), restarted.get("k" + i).getSeed());
+	}
+
+	/**
+	 * Return a result of n tests of 4 values, where the i-th test starts with i.
+	 */
+	private static Result result(long seed, int n) {
+		ArrayList<int[]> suite = new ArrayList<>();
+		for (int i = 0; i < n; i++)
+			suite.add(new int[]{i, 1, 0, 3});
+		return new Result(suite, 10, n, seed);
+	}
+
+}